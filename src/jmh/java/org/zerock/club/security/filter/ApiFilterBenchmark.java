@@ -0,0 +1,161 @@
+package org.zerock.club.security.filter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.zerock.club.security.cache.TokenRevocationList;
+import org.zerock.club.security.cache.VerifiedTokenCache;
+import org.zerock.club.util.JWTUtil;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API 필터(CORSFilter, ApiCheckFilter, ApiLoginFilter)가 API와 관계 없는 요청에 추가하는 비용
+ *
+ * legacy - 변경 전 구성. 매 요청마다 AntPathMatcher를 두 번 실행하고 로그를 남기며,
+ *          ApiCheckFilter/ApiLoginFilter가 서블릿 필터로도 등록되어 한번 더 실행됩니다.
+ * current - CompiledPathMatcher + shouldNotFilter(), 시큐리티 필터 체인에서 한번만 실행
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ApiFilterBenchmark {
+
+    @Param({"/css/style.css", "/sample/all", "/login"})
+    private String uri;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private Chain legacy;
+
+    private Chain current;
+
+    @Setup
+    public void setup() throws Exception {
+        request = new MockHttpServletRequest("GET", uri);
+        response = new MockHttpServletResponse();
+
+        JWTUtil jwtUtil = new JWTUtil();
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(100);
+
+        LegacyApiCheckFilter legacyCheck = new LegacyApiCheckFilter("/notes/**/*");
+        // 서블릿 필터로 등록된 빈은 컨테이너가 init()을 호출하므로 두 번째 실행은 OncePerRequestFilter가 건너뜁니다.
+        legacyCheck.init(new MockFilterConfig("apiCheckFilter"));
+
+        ApiLoginFilter legacyLogin = new ApiLoginFilter("/api/login", jwtUtil);
+        legacyLogin.setRequiresAuthenticationRequestMatcher(new AntPathRequestMatcher("/api/login"));
+
+        legacy = new Chain(new LegacyCORSFilter(), legacyCheck, legacyLogin, legacyCheck, legacyLogin);
+
+        current = new Chain(new CORSFilter(),
+                new ApiCheckFilter(new String[]{"/notes/**/*"}, jwtUtil, verifiedTokenCache, new TokenRevocationList(null, 1000, 0.001)),
+                new ApiLoginFilter("/api/login", jwtUtil));
+    }
+
+    @Benchmark
+    public int legacy() throws Exception {
+        return legacy.run(request, response);
+    }
+
+    @Benchmark
+    public int current() throws Exception {
+        return current.run(request, response);
+    }
+
+    // 필터를 순서대로 실행하고 마지막에 도달한 횟수를 반환하는 체인
+    static class Chain implements FilterChain {
+
+        private final Filter[] filters;
+
+        private int position;
+
+        private int reached;
+
+        Chain(Filter... filters) {
+            this.filters = filters;
+        }
+
+        int run(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            position = 0;
+            doFilter(request, response);
+            return reached;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            if (position < filters.length) {
+                filters[position++].doFilter(request, response, this);
+            } else {
+                reached++;
+            }
+        }
+    }
+
+    /**
+     * 변경 전 ApiCheckFilter의 경로 검사 부분
+     */
+    static class LegacyApiCheckFilter extends OncePerRequestFilter {
+
+        private static final Logger log = LogManager.getLogger(LegacyApiCheckFilter.class);
+
+        private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+        private final String pattern;
+
+        LegacyApiCheckFilter(String pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+            log.info("REQUESTURI: " + request.getRequestURI());
+
+            log.info(antPathMatcher.match(pattern, request.getRequestURI()));
+
+            if (antPathMatcher.match(pattern, request.getRequestURI())) {
+                throw new IllegalStateException("API 요청은 이 벤치마크의 대상이 아닙니다.");
+            }
+
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * 변경 전 CORSFilter - 모든 요청에 CORS 헤더를 추가
+     */
+    static class LegacyCORSFilter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+            response.setHeader("Access-Control-Allow-Origin", "*");
+            response.setHeader("Access-Control-Allow-Credentials", "true");
+            response.setHeader("Access-Control-Allow-Methods", "*");
+            response.setHeader("Access-Control-Max-Age", "3600");
+            response.setHeader("Access-Control-Allow-Headers", "Origin, X-Requested-With, Content-Type, Accept, key, Authorization");
+
+            if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+                response.setStatus(HttpServletResponse.SC_OK);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        }
+    }
+
+}
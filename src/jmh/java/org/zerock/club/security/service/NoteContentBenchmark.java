@@ -0,0 +1,158 @@
+package org.zerock.club.security.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.zerock.club.ClubApplication;
+import org.zerock.club.entity.ClubMember;
+import org.zerock.club.repository.ClubMemberRepository;
+import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 노트 내용 압축 저장과 목록 조회 비교
+ *
+ * 작성자 WRITERS명이 노트를 NOTES_PER_WRITER건씩 가지고 있고, 그 중 30%는 8~40KB의 긴 문서, 나머지는 짧은 메모입니다.
+ * 같은 데이터를 변경 전 형식(note_legacy, 문자열 content 컬럼)으로도 저장하고 시작할 때 두 형식의 저장 크기를 출력합니다.
+ *
+ * legacyList - 변경 전 목록 쿼리. 한 페이지(PAGE_SIZE건)를 content까지 읽습니다.
+ * previewList - 변경 후 목록 쿼리. content_data 대신 preview만 읽습니다.
+ * servicePage - NoteService.getPage() (previewList + DTO 변환)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteContentBenchmark {
+
+    private static final int WRITERS = 10;
+
+    private static final int NOTES_PER_WRITER = 200;
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final String EMAIL = "writer3@zerock.org";
+
+    private ConfigurableApplicationContext context;
+
+    private NoteService noteService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ClubApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.url=jdbc:h2:mem:content;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false");
+
+        noteService = context.getBean(NoteService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.execute("create table note_legacy (num bigint primary key, title varchar(255), content longtext, " +
+                "writer_email varchar(255), moddate timestamp)");
+        jdbcTemplate.execute("create index idx_note_legacy_writer on note_legacy (writer_email, moddate, num)");
+
+        Random random = new Random(42);
+        String[] words = vocabulary(random);
+        long legacyBytes = 0;
+
+        for (int w = 0; w < WRITERS; w++) {
+            String email = "writer" + w + "@zerock.org";
+            context.getBean(ClubMemberRepository.class).save(
+                    ClubMember.builder().email(email).name(email).password("1111").fromSocial(false).build());
+
+            List<Object[]> legacyRows = new ArrayList<>();
+
+            for (int i = 0; i < NOTES_PER_WRITER; i++) {
+                String content = random.nextInt(10) < 3
+                        ? text(random, words, 8_000 + random.nextInt(32_000))
+                        : text(random, words, 50 + random.nextInt(350));
+
+                Long num = noteService.register(NoteDTO.builder().title("title " + i).content(content).writerEmail(email).build());
+
+                legacyRows.add(new Object[]{num, "title " + i, content, email, new java.sql.Timestamp(System.currentTimeMillis())});
+                legacyBytes += content.getBytes(StandardCharsets.UTF_8).length;
+            }
+
+            jdbcTemplate.batchUpdate("insert into note_legacy values (?, ?, ?, ?, ?)", legacyRows);
+        }
+
+        Long currentBytes = jdbcTemplate.queryForObject(
+                "select sum(octet_length(content_data)) + sum(coalesce(octet_length(preview), 0)) from note", Long.class);
+
+        System.out.printf("%ncontent storage: legacy %,d bytes, current %,d bytes (content_data + preview), %.1f%%%n",
+                legacyBytes, currentBytes, currentBytes * 100.0 / legacyBytes);
+    }
+
+    private static final double[] ZIPF = new double[3000];
+
+    static {
+        double sum = 0;
+        for (int i = 0; i < ZIPF.length; i++) {
+            sum += 1.0 / (i + 1);
+            ZIPF[i] = sum;
+        }
+        for (int i = 0; i < ZIPF.length; i++) {
+            ZIPF[i] /= sum;
+        }
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[3000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                word.append(random.nextInt(4) == 0 ? (char) ('가' + random.nextInt(400)) : (char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    // 단어 빈도가 지프 분포(순위에 반비례)를 따르는 문장
+    private static String text(Random random, String[] words, int length) {
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            int index = java.util.Arrays.binarySearch(ZIPF, random.nextDouble());
+            builder.append(words[Math.min(words.length - 1, index < 0 ? -index - 1 : index)]);
+            builder.append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return builder.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> legacyList() {
+        return jdbcTemplate.queryForList("select num, title, content, writer_email, moddate from note_legacy " +
+                "where writer_email = ? order by moddate desc, num desc limit " + PAGE_SIZE, EMAIL);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> previewList() {
+        return jdbcTemplate.queryForList("select num, title, preview, writer_email, moddate from note " +
+                "where writer_email = ? order by moddate desc, num desc limit " + PAGE_SIZE, EMAIL);
+    }
+
+    @Benchmark
+    public NotePageDTO servicePage() {
+        return noteService.getPage(EMAIL, null, PAGE_SIZE);
+    }
+
+}
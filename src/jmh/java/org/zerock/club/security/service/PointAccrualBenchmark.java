@@ -0,0 +1,121 @@
+package org.zerock.club.security.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.ClubApplication;
+import org.zerock.club.entity.Membership;
+import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.repository.MembershipRepository;
+import org.zerock.club.security.cache.PointAccumulator;
+import org.zerock.club.security.dto.MembershipDTO;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 64개의 스레드가 같은 멤버십 하나(hot key)에 동시에 적립할 때의 처리량
+ *
+ * legacy   - 변경 전 방식. 트랜잭션 안에서 findById() -> setPoint() -> save() (동시에 실행되면 적립이 사라집니다)
+ * atomic   - MembershipService.addPoint() (포인트 원장에 한 행 추가 후 잔액 조회)
+ * deferred - MembershipService.addPointDeferred() (LongAdder에 더하고 PointAccumulator.flush()가 원장에 저장)
+ *
+ * H2 메모리 데이터베이스로 애플리케이션을 (임의의 포트로) 띄워서 실행합니다.
+ * 각 측정(iteration)이 끝나면 flush()한 다음 적립한 횟수와 저장된 포인트를 비교해서 사라진 적립을 출력합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class PointAccrualBenchmark {
+
+    private static final String USER_ID = "bench";
+
+    private String membershipId;
+
+    private int iteration;
+
+    // 적립 1포인트 (point 컬럼은 int이므로 측정 중에 넘치지 않도록)
+    private static final int MONEY = 100;
+
+    private ConfigurableApplicationContext context;
+
+    private MembershipService membershipService;
+
+    private MembershipRepository membershipRepository;
+
+    private PointAccumulator pointAccumulator;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final LongAdder calls = new LongAdder();
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ClubApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=64",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false");
+
+        membershipService = context.getBean(MembershipService.class);
+        membershipRepository = context.getBean(MembershipRepository.class);
+        pointAccumulator = context.getBean(PointAccumulator.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        pointAccumulator.flush();
+        // 측정마다 새 멤버십에 적립합니다.
+        membershipId = "card" + iteration++;
+        membershipService.register(MembershipDTO.builder().userId(USER_ID).membershipId(membershipId)
+                .membershipName("bench").membershipStatus(true).point(0).build());
+    }
+
+    @TearDown(Level.Iteration)
+    public void check() {
+        pointAccumulator.flush();
+
+        long expected = calls.sumThenReset() * membershipService.toPoint(MONEY);
+        long actual = membershipService.getBalance(USER_ID, membershipId).orElse(0);
+
+        System.out.println(" points expected " + expected + ", actual " + actual + ", lost " + (expected - actual));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long legacy() {
+        calls.increment();
+        return transactionTemplate.execute(status -> {
+            Membership membership = membershipRepository.findById(new MembershipPK(USER_ID, membershipId)).get();
+            membership.setPoint(membership.getPoint() + membershipService.toPoint(MONEY));
+            membershipRepository.save(membership);
+            return membership.getPoint();
+        });
+    }
+
+    @Benchmark
+    public OptionalLong atomic() {
+        calls.increment();
+        return membershipService.addPoint(USER_ID, membershipId, MONEY);
+    }
+
+    @Benchmark
+    public void deferred() {
+        calls.increment();
+        membershipService.addPointDeferred(USER_ID, membershipId, MONEY);
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.zerock.club.security.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.ClubApplication;
+import org.zerock.club.entity.ClubMember;
+import org.zerock.club.entity.Membership;
+import org.zerock.club.entity.Note;
+import org.zerock.club.repository.ClubMemberRepository;
+import org.zerock.club.repository.MembershipRepository;
+import org.zerock.club.security.dto.MembershipDTO;
+import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+import org.zerock.club.security.dto.SparseNotePageDTO;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 조회 경로의 엔티티 조회 + 변환(legacy)과 DTO 프로젝션(current) 비교
+ *
+ * H2 메모리 데이터베이스로 애플리케이션을 (임의의 포트로) 띄우고 작성자 한 명의 노트 NOTES건, 회원 한 명의 멤버십 MEMBERSHIPS건을 조회합니다.
+ * legacy - 변경 전 방식. 읽기/쓰기 트랜잭션에서 엔티티(노트는 작성자 fetch join)를 읽어서 entityToDTO()로 변환
+ * current - NoteService.getAllWithWriter(), MembershipRepository.getMembershipDTOList() (readOnly 트랜잭션 + constructor expression)
+ * cached - MembershipService.getAll() (MembershipCache 히트), membershipsSparse도 캐시에서 고릅니다.
+ * sparse - fields=로 고른 속성만 조회 (Criteria Tuple), notesPage는 같은 크기의 전체 속성 페이지
+ *
+ * ./gradlew jmh 의 gc 프로파일러 결과에서 gc.alloc.rate.norm(B/op)을 비교합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadProjectionBenchmark {
+
+    private static final int NOTES = 100;
+
+    private static final int MEMBERSHIPS = 20;
+
+    private static final String EMAIL = "bench@zerock.org";
+
+    private ConfigurableApplicationContext context;
+
+    private NoteService noteService;
+
+    private MembershipService membershipService;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    private MembershipRepository membershipRepository;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ClubApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false");
+
+        noteService = context.getBean(NoteService.class);
+        membershipService = context.getBean(MembershipService.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTemplate.setReadOnly(true);
+        membershipRepository = context.getBean(MembershipRepository.class);
+
+        ClubMember member = ClubMember.builder().email(EMAIL).name("bench").password("1111").fromSocial(false).build();
+        context.getBean(ClubMemberRepository.class).save(member);
+
+        for (int i = 0; i < NOTES; i++) {
+            noteService.register(NoteDTO.builder().title("title" + i).content("content..." + i).writerEmail(EMAIL).build());
+        }
+
+        for (int i = 0; i < MEMBERSHIPS; i++) {
+            membershipService.register(MembershipDTO.builder().userId(EMAIL).membershipId("m" + i)
+                    .membershipName("membership" + i).membershipStatus(true).point(i).build());
+        }
+
+        // membershipsSparse가 캐시에서 고르도록 미리 읽어둡니다.
+        membershipService.getAll(EMAIL);
+
+        // 두 방식 모두 같은 요청을 처리하는지 확인
+        if (notesLegacy().size() != NOTES || notesCurrent().size() != NOTES
+                || notesPage().getNotes().size() != NOTES || notesPageSparse().getNotes().size() != NOTES
+                || membershipsLegacy().size() != MEMBERSHIPS || membershipsCurrent().size() != MEMBERSHIPS
+                || membershipsSparse().size() != MEMBERSHIPS) {
+            throw new IllegalStateException("unexpected result size");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<NoteDTO> notesLegacy() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select n from Note n join fetch n.writer where n.writer.email = :email", Note.class)
+                .setParameter("email", EMAIL)
+                .getResultList()
+                .stream()
+                .map(note -> noteService.entityToDTO(note))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<NoteDTO> notesCurrent() {
+        return noteService.getAllWithWriter(EMAIL);
+    }
+
+    @Benchmark
+    public NotePageDTO notesPage() {
+        return noteService.getPage(EMAIL, null, NOTES);
+    }
+
+    @Benchmark
+    public SparseNotePageDTO notesPageSparse() {
+        return noteService.getPage(EMAIL, null, NOTES, "num,title");
+    }
+
+    @Benchmark
+    public List<MembershipDTO> membershipsLegacy() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT b FROM Membership b WHERE b.membershipPK.userId = :userId", Membership.class)
+                .setParameter("userId", EMAIL)
+                .getResultList()
+                .stream()
+                .map(membership -> membershipService.entityToDTO(membership))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<MembershipDTO> membershipsCurrent() {
+        return readOnlyTemplate.execute(status -> membershipRepository.getMembershipDTOList(EMAIL));
+    }
+
+    @Benchmark
+    public List<MembershipDTO> membershipsCached() {
+        return membershipService.getAll(EMAIL);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> membershipsSparse() {
+        return membershipService.getAll(EMAIL, "membershipId,point");
+    }
+
+}
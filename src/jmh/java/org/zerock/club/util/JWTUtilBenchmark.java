@@ -0,0 +1,148 @@
+package org.zerock.club.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.jsonwebtoken.impl.DefaultJws;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWTUtil 변경 전(legacy)과 변경 후(current)의 비교
+ *
+ * ./gradlew jmh 로 실행하면 ops/s와 gc.alloc.rate.norm(B/op)이 같이 출력됩니다.
+ * valid - 정상 토큰, expired - 만료된 토큰, forged - 서명이 다른 토큰
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JWTUtilBenchmark {
+
+    private JWTUtil current;
+
+    private LegacyJWTUtil legacy;
+
+    private String validToken;
+
+    private String expiredToken;
+
+    private String forgedToken;
+
+    @Setup
+    public void setup() throws Exception {
+        current = new JWTUtil();
+        legacy = new LegacyJWTUtil();
+
+        validToken = current.generateToken("user95@zerock.org");
+
+        expiredToken = Jwts.builder()
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .claim("sub", "user95@zerock.org")
+                .signWith(SignatureAlgorithm.HS256, "zerock12345678".getBytes("UTF-8"))
+                .compact();
+
+        forgedToken = Jwts.builder()
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .claim("sub", "user95@zerock.org")
+                .signWith(SignatureAlgorithm.HS256, "forged-secret".getBytes("UTF-8"))
+                .compact();
+    }
+
+    @Benchmark
+    public String generateLegacy() throws Exception {
+        return legacy.generateToken("user95@zerock.org");
+    }
+
+    @Benchmark
+    public String generateCurrent() throws Exception {
+        return current.generateToken("user95@zerock.org");
+    }
+
+    @Benchmark
+    public String validateValidLegacy() throws Exception {
+        return legacy.validateAndExtract(validToken);
+    }
+
+    @Benchmark
+    public String validateValidCurrent() throws Exception {
+        return current.validateAndExtract(validToken);
+    }
+
+    @Benchmark
+    public String validateExpiredLegacy() throws Exception {
+        return legacy.validateAndExtract(expiredToken);
+    }
+
+    @Benchmark
+    public String validateExpiredCurrent() throws Exception {
+        return current.validateAndExtract(expiredToken);
+    }
+
+    @Benchmark
+    public String validateForgedLegacy() throws Exception {
+        return legacy.validateAndExtract(forgedToken);
+    }
+
+    @Benchmark
+    public String validateForgedCurrent() throws Exception {
+        return current.validateAndExtract(forgedToken);
+    }
+
+    /**
+     * 변경 전 JWTUtil 그대로의 코드
+     * printStackTrace()는 콘솔 대신 버려지는 스트림으로 출력하지만 스택 트레이스를 만드는 비용은 그대로입니다.
+     */
+    static class LegacyJWTUtil {
+
+        private static final Logger log = LogManager.getLogger(LegacyJWTUtil.class);
+
+        private static final PrintStream SINK = new PrintStream(OutputStream.nullOutputStream());
+
+        private String secretKey = "zerock12345678";
+
+        private long expire = 60 * 24 * 30;
+
+        public String generateToken(String content) throws Exception {
+            return Jwts.builder()
+                    .setIssuedAt(new Date())
+                    .setExpiration(Date.from(ZonedDateTime.now().plusMinutes(expire).toInstant()))
+                    .claim("sub", content)
+                    .signWith(SignatureAlgorithm.HS256, secretKey.getBytes("UTF-8"))
+                    .compact();
+        }
+
+        public String validateAndExtract(String tokenStr) throws Exception {
+            String contentValue = null;
+
+            try {
+                DefaultJws defaultJws = (DefaultJws) Jwts.parser()
+                        .setSigningKey(secretKey.getBytes("UTF-8")).parseClaimsJws(tokenStr);
+
+                log.info(defaultJws);
+                log.info(defaultJws.getBody().getClass());
+
+                DefaultClaims claims = (DefaultClaims) defaultJws.getBody();
+
+                log.info("------------------------------");
+
+                contentValue = claims.getSubject();
+
+            } catch(Exception e) {
+                e.printStackTrace(SINK);
+                log.error(e.getMessage());
+                contentValue = null;
+            }
+            return contentValue;
+        }
+    }
+
+}
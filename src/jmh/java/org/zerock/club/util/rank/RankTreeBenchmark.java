@@ -0,0 +1,86 @@
+package org.zerock.club.util.rank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 100만 명 기준 순위표 성능
+ *
+ * top - 상위 10명
+ * rank - 회원 한 명의 순위
+ * page - 순위 50만 번째부터 10명
+ * add - 회원 한 명의 점수 변경 (적립)
+ * topScan - 비교용, 전체 회원을 읽으면서 상위 10명을 고르기 (ORDER BY point DESC LIMIT 10과 같은 방식)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RankTreeBenchmark {
+
+    private static final int MEMBERS = 1_000_000;
+
+    private RankTree tree;
+
+    private String[] members;
+
+    private long[] scores;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        random = new Random(42);
+
+        tree = new RankTree();
+        members = new String[MEMBERS];
+        scores = new long[MEMBERS];
+
+        for (int i = 0; i < MEMBERS; i++) {
+            members[i] = "user" + i + "@zerock.org";
+            scores[i] = random.nextInt(100_000);
+            tree.put(members[i], scores[i]);
+        }
+    }
+
+    @Benchmark
+    public List<RankTree.Entry> top() {
+        return tree.range(0, 10);
+    }
+
+    @Benchmark
+    public int rank() {
+        return tree.rank(members[random.nextInt(MEMBERS)]);
+    }
+
+    @Benchmark
+    public List<RankTree.Entry> page() {
+        return tree.range(MEMBERS / 2, 10);
+    }
+
+    @Benchmark
+    public boolean add() {
+        return tree.add(members[random.nextInt(MEMBERS)], random.nextInt(100) + 1);
+    }
+
+    @Benchmark
+    public PriorityQueue<Long> topScan() {
+        PriorityQueue<Long> top = new PriorityQueue<>(11);
+
+        for (long score : scores) {
+            top.add(score);
+
+            if (top.size() > 10) {
+                top.poll();
+            }
+        }
+        return top;
+    }
+
+}
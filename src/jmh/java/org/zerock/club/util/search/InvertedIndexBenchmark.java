@@ -0,0 +1,133 @@
+package org.zerock.club.util.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 노트 100만 건 기준 검색 색인 성능
+ *
+ * index - 노트 한 건 색인 (100만 건이 색인된 상태에서 추가)
+ * searchRare/searchCommon - 드문 단어/흔한 단어 두 개로 검색 (상위 20건)
+ * searchWriter - 흔한 단어 + 작성자 제한
+ * likeScan - 비교용, 전체 노트의 제목/내용을 contains()로 확인 (LIKE '%q%'와 같은 방식)
+ *
+ * 단어는 50,000개 중에서 지프 분포(Zipf)로 고르고 노트 하나는 제목 4단어, 내용 40단어입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InvertedIndexBenchmark {
+
+    private static final int NOTES = 1_000_000;
+
+    private static final int WRITERS = 1_000;
+
+    private static final int VOCABULARY = 50_000;
+
+    private InvertedIndex index;
+
+    private String[] titles;
+
+    private String[] contents;
+
+    private String[] words;
+
+    private double[] cumulative;
+
+    private Random random;
+
+    private long nextNum;
+
+    @Setup
+    public void setup() {
+        random = new Random(42);
+
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "w" + Integer.toString(i, 36);
+        }
+
+        cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < VOCABULARY; i++) {
+            cumulative[i] /= sum;
+        }
+
+        titles = new String[NOTES];
+        contents = new String[NOTES];
+        index = new InvertedIndex();
+
+        long start = System.currentTimeMillis();
+
+        for (int i = 0; i < NOTES; i++) {
+            titles[i] = text(4);
+            contents[i] = text(40);
+            index.add(i + 1, "user" + (i % WRITERS) + "@zerock.org", titles[i], contents[i]);
+        }
+
+        System.out.println("\nindexed " + NOTES + " notes in " + (System.currentTimeMillis() - start)
+                + "ms, terms: " + index.termCount());
+
+        nextNum = NOTES + 1;
+    }
+
+    private String text(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(word());
+        }
+        return builder.toString();
+    }
+
+    private String word() {
+        int i = java.util.Arrays.binarySearch(cumulative, random.nextDouble());
+        return words[Math.min(VOCABULARY - 1, i < 0 ? -i - 1 : i)];
+    }
+
+    @Benchmark
+    public void index() {
+        int i = (int) (nextNum % NOTES);
+        index.add(nextNum++, "user" + (i % WRITERS) + "@zerock.org", titles[i], contents[i]);
+    }
+
+    @Benchmark
+    public long[] searchRare() {
+        return index.search(words[20_000] + " " + words[30_000], null, 20);
+    }
+
+    @Benchmark
+    public long[] searchCommon() {
+        return index.search(words[50] + " " + words[100], null, 20);
+    }
+
+    @Benchmark
+    public long[] searchWriter() {
+        return index.search(words[50] + " " + words[100], "user7@zerock.org", 20);
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 2)
+    public int likeScan() {
+        String q = words[20_000];
+        int count = 0;
+        for (int i = 0; i < NOTES; i++) {
+            if (titles[i].contains(q) || contents[i].contains(q)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
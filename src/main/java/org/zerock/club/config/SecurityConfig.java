@@ -2,18 +2,26 @@ package org.zerock.club.config;
 
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.zerock.club.security.cache.TokenRevocationList;
+import org.zerock.club.security.cache.VerifiedTokenCache;
+import org.zerock.club.security.encoder.BoundedPasswordEncoder;
 import org.zerock.club.security.filter.ApiCheckFilter;
 import org.zerock.club.security.filter.ApiLoginFilter;
 import org.zerock.club.security.handler.ApiLoginFailHandler;
+import org.zerock.club.security.handler.ClubLoginFailHandler;
 import org.zerock.club.security.handler.ClubLoginSuccessHandler;
 import org.zerock.club.security.service.ClubUserDetailService;
 import org.zerock.club.util.JWTUtil;
@@ -61,9 +69,31 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
      * BCryptPasswordEncoder로 암호화된 패스워드는 다시 원래대로 복호화가 불가능하고 매번 암호화된 값도 다르게
      * 됩니다. 대신에 특정한 문자열이 암호화된 결과인지만 확인할 수 있기 때문에 원본 내용을 알 수가 없습니다.
      */
+    @Value("${club.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${club.security.bcrypt.threads:0}")
+    private int bcryptThreads;
+
+    @Value("${club.security.bcrypt.queue-capacity:64}")
+    private int bcryptQueueCapacity;
+
+    @Value("${club.security.bcrypt.timeout-ms:3000}")
+    private long bcryptTimeoutMillis;
+
+    /**
+     * BCrypt 연산은 요청 스레드가 아닌 CPU 개수 크기의 전용 스레드 풀에서 처리합니다.
+     * 큐가 가득 차면 로그인 실패 핸들러에서 503 응답을 보냅니다.
+     *
+     * strength(cost)를 올리면 DaoAuthenticationProvider가 upgradeEncoding()으로 이를 확인하고
+     * 로그인에 성공한 회원의 패스워드를 새 cost로 다시 저장합니다.(ClubUserDetailService.updatePassword())
+     */
     @Bean
     PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+        int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                threads, bcryptQueueCapacity, bcryptTimeoutMillis);
     }
 
     // AuthenticationManager 설정
@@ -106,7 +136,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         // formLogin()을 이용하는 경우 별도의 디자인을 적용하기 위해서는 추가적인 설정이 필요합니다.
         // loginPage()나 loginProcessUrl(), defaultSuccessUrl(), faillureUrl() 등을 이용해서 필요한 설정을 지정할 수 있습니다.
         // 대부분의 애플리케이션은 고유한 디자인을 적용하기 때문에 loginPage()를 사용해서 별도의 로그인 페이지를 이용하는 경우가 많습니다.
-        http.formLogin();
+        http.formLogin().failureHandler(new ClubLoginFailHandler());
 
         // csrf토큰 비활성화
         http.csrf().disable();
@@ -123,20 +153,54 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.oauth2Login().successHandler(successHandler());
         http.rememberMe().tokenValiditySeconds(60*60*7).userDetailsService(userDetailService); //7days
 
+        // ApiCheckFilter, ApiLoginFilter는 아래의 ApiSecurityConfig(API 전용 필터 체인)에서만 동작합니다.
+    }
+
+    /**
+     * API 전용 필터 체인
+     *
+     * '/api/**', '/notes/**', '/membership/**'는 화면이 없는 API이므로 폼 로그인, OAuth2 로그인, remember-me, 로그아웃,
+     * 세션 관련 필터가 필요 없습니다. @Order(1)로 웹 화면용 체인보다 먼저 검사하고, 기본 필터 없이(disableDefaults)
+     * JWT 필터와 SecurityContext 처리만 구성합니다.
+     *
+     * STATELESS이므로 SecurityContext를 세션에 저장하지 않고 HttpSession도 만들지 않습니다.
+     */
+    @Configuration
+    @Order(1)
+    public static class ApiSecurityConfig extends WebSecurityConfigurerAdapter {
+
+        @Autowired
+        private ApiCheckFilter apiCheckFilter;
+
+        @Autowired
+        private ApiLoginFilter apiLoginFilter;
 
-        /**
-         * ** 필터의 위치 조절과 AntPathMatcher
-         */
-        //필터의 위치 조절
-        http.addFilterBefore(apiCheckFilter(), UsernamePasswordAuthenticationFilter.class);
-        http.addFilterBefore(apiLoginFilter(), UsernamePasswordAuthenticationFilter.class);
+        public ApiSecurityConfig() {
+            super(true);
+        }
 
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
 
+            http.requestMatchers()
+                    .antMatchers("/api/**", "/notes/**", "/membership/**");
+
+            http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+
+            http.securityContext();
+
+            /**
+             * ** 필터의 위치 조절과 AntPathMatcher
+             */
+            //필터의 위치 조절
+            http.addFilterBefore(apiCheckFilter, UsernamePasswordAuthenticationFilter.class);
+            http.addFilterBefore(apiLoginFilter, UsernamePasswordAuthenticationFilter.class);
+        }
     }
 
     @Bean
     public ClubLoginSuccessHandler successHandler(){
-        return new ClubLoginSuccessHandler(passwordEncoder());
+        return new ClubLoginSuccessHandler();
     }
 
     // CSRF 설정
@@ -173,6 +237,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private ClubUserDetailService userDetailService ; // 주입
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // 검증이 끝난 토큰을 exp 시각까지 보관하는 캐시
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     /**
      * ApiChekcFilter, 스프링의 빈으로 설정
      */
@@ -181,7 +252,20 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
         // ApiCheckerFilter는 오직 '/notes/..'로 시작하는 경우에만 동작하는게 바람직할 것입니다.
         // 이를 처리하는 방법으로는 AntPathMatcher라는 것을 사용합니다. AntPathMatcher는 앤트 패턴에 맞는지를 검사하는 유틸리티 입니다.
-        return new ApiCheckFilter("/notes/**/*", jwtUtil());
+        // 포인트 적립('/membership/points/..')도 포인트를 만들어 내는 API이므로 토큰을 확인합니다.
+        return new ApiCheckFilter(new String[]{"/notes/**/*", "/membership/points/**"},
+                jwtUtil(), verifiedTokenCache, tokenRevocationList);
+    }
+
+    /**
+     * Filter 타입의 빈은 스프링 부트가 서블릿 필터로도 자동 등록하기 때문에 addFilterBefore()로 추가한 것과 합쳐서
+     * 모든 요청에서 두 번씩 실행됩니다. 시큐리티 필터 체인 안에서만 동작하도록 자동 등록은 끕니다.
+     */
+    @Bean
+    public FilterRegistrationBean<ApiCheckFilter> apiCheckFilterRegistration(){
+        FilterRegistrationBean<ApiCheckFilter> registration = new FilterRegistrationBean<>(apiCheckFilter());
+        registration.setEnabled(false);
+        return registration;
     }
 
     @Bean
@@ -195,6 +279,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         return apiLoginFilter;
     }
 
+    @Bean
+    public FilterRegistrationBean<ApiLoginFilter> apiLoginFilterRegistration() throws Exception {
+        FilterRegistrationBean<ApiLoginFilter> registration = new FilterRegistrationBean<>(apiLoginFilter());
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public JWTUtil jwtUtil(){
         return new JWTUtil();
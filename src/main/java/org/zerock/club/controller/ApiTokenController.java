@@ -0,0 +1,64 @@
+package org.zerock.club.controller;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.zerock.club.security.cache.TokenRevocationList;
+import org.zerock.club.security.cache.VerifiedTokenCache;
+import org.zerock.club.util.JWTUtil;
+
+/**
+ * API 토큰의 로그아웃(폐기) 처리
+ *
+ * JWT는 서버에 상태가 없기 때문에 만료 시각까지는 계속 사용할 수 있습니다.
+ * 로그아웃한 토큰은 jti를 폐기 목록에 등록해서 ApiCheckFilter에서 거절되도록 합니다.
+ */
+@RestController
+@Log4j2
+@RequestMapping("/api/")
+@RequiredArgsConstructor
+public class ApiTokenController {
+
+    private final JWTUtil jwtUtil;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    @PostMapping(value = "/logout", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) throws Exception {
+
+        if(!StringUtils.hasText(authHeader) || !authHeader.startsWith("Bearer ")){
+            return new ResponseEntity<>("no token", HttpStatus.UNAUTHORIZED);
+        }
+
+        String token = authHeader.substring(7);
+
+        Claims claims = jwtUtil.validateAndGetClaims(token);
+
+        if(claims == null){
+            return new ResponseEntity<>("invalid token", HttpStatus.UNAUTHORIZED);
+        }
+
+        // jti가 없는 예전 토큰은 폐기할 수 없습니다. 다시 로그인해서 새 토큰을 발급받아야 합니다.
+        if(claims.getId() == null || claims.getExpiration() == null){
+            return new ResponseEntity<>("token has no jti", HttpStatus.BAD_REQUEST);
+        }
+
+        tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime());
+        verifiedTokenCache.invalidate(token);
+
+        log.debug("revoked token: {}", claims.getId());
+
+        return new ResponseEntity<>("revoked", HttpStatus.OK);
+    }
+
+}
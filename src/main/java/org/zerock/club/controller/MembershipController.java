@@ -2,12 +2,18 @@ package org.zerock.club.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.zerock.club.security.dto.LeaderboardEntryDTO;
+import org.zerock.club.security.dto.LeaderboardPageDTO;
 import org.zerock.club.security.dto.MembershipDTO;
-import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.PointAccrualDTO;
+import org.zerock.club.security.dto.PointAccrualResultDTO;
+import org.zerock.club.security.dto.PointEventDTO;
+import org.zerock.club.security.dto.PointHistoryPageDTO;
 import org.zerock.club.security.service.MembershipService;
 
 import java.util.List;
@@ -20,11 +26,25 @@ public class MembershipController {
 
     private final MembershipService membershipService;
 
+    @Value("${club.membership.history.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${club.membership.history.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${club.membership.leaderboard.page-size:10}")
+    private int leaderboardPageSize;
+
+    @Value("${club.membership.leaderboard.max-page-size:100}")
+    private int leaderboardMaxPageSize;
+
+    @Value("${club.membership.points.batch.max-rows:10000}")
+    private int batchMaxRows;
+
     @PostMapping(value = "")
     public ResponseEntity<MembershipDTO> register(@RequestBody MembershipDTO membershipDTO) {
 
-        log.info("-----------register--------------");
-        log.info(membershipDTO);
+        log.debug("register: {}", membershipDTO);
 
         membershipService.register(membershipDTO);
 
@@ -32,12 +52,98 @@ public class MembershipController {
 
     }
 
+    /**
+     * 결제 여러 건([{userId, membershipId, money}, ...])의 포인트를 한번에 적립합니다.
+     * 응답은 요청과 같은 순서의 행마다의 결과이고, FAILED인 행만 다시 보내면 됩니다.
+     * 한 번에 max-rows보다 많이 보내면 413이고, JWT(Authorization 헤더)가 있어야 합니다. (ApiCheckFilter)
+     */
+    @PostMapping(value = "/points/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PointAccrualResultDTO>> addPoints(@RequestBody List<PointAccrualDTO> accruals) {
+
+        log.debug("addPoints: {} rows", accruals.size());
+
+        if (accruals.size() > batchMaxRows) {
+            return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+
+        return new ResponseEntity<>(membershipService.addPoints(accruals), HttpStatus.OK);
+    }
+
+    /**
+     * fields(예: fields=membershipId,point)를 주면 그 속성만 조회해서 반환합니다. 모르는 속성이 있으면 400
+     */
     @GetMapping(value="/all", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<MembershipDTO>> getList(String userId){
-        log.info("-----------getList--------------");
-        log.info(userId);
+    public ResponseEntity<List<?>> getList(String userId, String fields){
+        log.debug("getList: {}, fields: {}", userId, fields);
+
+        if (fields == null || fields.isBlank()) {
+            return new ResponseEntity<>(membershipService.getAll(userId), HttpStatus.OK);
+        }
+
+        try {
+            return new ResponseEntity<>(membershipService.getAll(userId, fields), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * 멤버십의 포인트 순위표를 순위 offset(0부터)부터 size명 반환합니다. 'X-Total-Count' 헤더는 순위표 전체의 회원 수입니다.
+     * userId를 주면 offset 대신 그 회원이 가운데인 페이지를 반환하고, 순위표에 없는 회원이면 404
+     * 서버를 시작한 직후 순위표를 만드는 동안에는 503
+     */
+    @GetMapping(value = "/leaderboard/{membershipId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(@PathVariable("membershipId") String membershipId,
+                                                                    String userId, Integer offset, Integer size){
+        log.debug("getLeaderboard: {}, userId: {}, offset: {}", membershipId, userId, offset);
+
+        int pageSize = size == null || size <= 0 ? leaderboardPageSize : Math.min(size, leaderboardMaxPageSize);
+
+        LeaderboardPageDTO page;
+
+        try {
+            page = membershipService.getLeaderboard(membershipId, userId, offset == null ? 0 : Math.max(0, offset), pageSize);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "10").build();
+        }
+
+        if (page == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotal()))
+                .body(page.getEntries());
+    }
+
+    /**
+     * 포인트 원장(적립/사용/소멸)을 최근 이벤트부터 한 페이지씩 반환합니다.
+     * 다음 페이지가 있으면 'X-Next-Cursor' 헤더의 값을 cursor 파라미터로 다시 전달하면 됩니다.
+     */
+    @GetMapping(value = "/{userId}/{membershipId}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PointEventDTO>> getHistory(@PathVariable("userId") String userId,
+                                                          @PathVariable("membershipId") String membershipId,
+                                                          String cursor, Integer size){
+        log.debug("getHistory: {}/{}, cursor: {}", userId, membershipId, cursor);
+
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        PointHistoryPageDTO page;
+
+        try {
+            page = membershipService.getHistory(userId, membershipId, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+
+        if (page.getNextCursor() != null) {
+            builder.header("X-Next-Cursor", page.getNextCursor());
+        }
 
-        return new ResponseEntity<>(membershipService.getAll(userId), HttpStatus.OK);
+        return builder.body(page.getEvents());
     }
 
 }
@@ -2,14 +2,27 @@ package org.zerock.club.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NoteListVersionDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+import org.zerock.club.security.dto.SparseNotePageDTO;
+import org.zerock.club.security.service.NoteBatchException;
 import org.zerock.club.security.service.NoteService;
+import org.zerock.club.security.service.NoteVersionConflictException;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @Log4j2
@@ -19,55 +32,199 @@ public class NoteController {
 
     private final NoteService noteService; // final
 
+    @Value("${club.notes.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${club.notes.max-page-size:100}")
+    private int maxPageSize;
+
     @PostMapping(value = "")
     public ResponseEntity<Long> register (@RequestBody NoteDTO noteDTO){
 
-        log.info("--------------------register--------------------");
-        log.info(noteDTO);
+        log.debug("register: {}", noteDTO);
 
         Long num = noteService.register(noteDTO);
 
         return new ResponseEntity<>(num, HttpStatus.OK);
     }
 
+    /**
+     * 노트를 한번에 여러 건 등록합니다. 본문은 NoteDTO의 JSON 배열 또는 NDJSON(한 줄에 하나)입니다.
+     * 본문은 읽는 대로 저장하므로 크기 제한이 없고, 응답은 저장한 건수입니다.
+     * 중간에 실패하면 400과 함께 그때까지 저장된 건수를 반환합니다.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<Long> registerBatch(InputStream in){
+
+        try {
+            return new ResponseEntity<>(noteService.registerAll(in), HttpStatus.OK);
+        } catch (NoteBatchException e) {
+            log.warn("registerBatch: {}", e.getMessage());
+            return new ResponseEntity<>(e.getInserted(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // produces: 응답 헤더로 "Content-Type: application/json;charset=UTF-8
     // consumes: HTTP 요청 헤더가 "Conent-Type: application/json;charset=UTF-8"인 것만 처리한다.
     //           다른 값이 들어올 경우 HttpMediaTypeNotSupportedException을 발생시킨다.
+    // ETag는 (num, modDate)로 만듭니다. If-None-Match가 같으면 NoteDTO를 만들지 않고 304를 반환합니다.
+    // If-None-Match가 없는 요청은 modDate를 따로 조회하지 않고 NoteDTO(NoteCache)에서 ETag를 만듭니다.
     @GetMapping(value = "/{num}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<NoteDTO> read(@PathVariable("num") Long num){
+    public ResponseEntity<NoteDTO> read(@PathVariable("num") Long num, WebRequest webRequest){
+
+        log.debug("read: {}", num);
+
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            LocalDateTime modDate = noteService.getModDate(num);
+
+            if (modDate != null && webRequest.checkNotModified(noteETag(num, modDate))) {
+                return null;
+            }
+        }
+
+        NoteDTO noteDTO = noteService.get(num);
 
-        log.info("--------------read----------------------------");
-        log.info(num);
-        return new ResponseEntity<>(noteService.get(num), HttpStatus.OK);
+        if (noteDTO == null) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+
+        return ResponseEntity.ok().eTag(noteETag(num, noteDTO.getModDate())).body(noteDTO);
     }
 
+    /**
+     * 작성자의 노트 목록을 최근 수정된 순서로 한 페이지씩 반환합니다.
+     * 다음 페이지가 있으면 'X-Next-Cursor' 헤더의 값을 cursor 파라미터로 다시 전달하면 됩니다.
+     * 목록에는 내용(content) 대신 앞부분(preview)만 들어있습니다. 전체 내용은 /notes/{num}으로 조회합니다.
+     * fields(예: fields=num,title)를 주면 그 속성만 조회해서 반환합니다. 모르는 속성이 있으면 400
+     *
+     * ETag는 작성자 노트의 개수와 가장 최근의 modDate, 그리고 cursor/size/fields로 만듭니다.
+     * 목록이 바뀌지 않았으면 인덱스만 읽는 쿼리 한번으로 304를 반환합니다.
+     */
     @GetMapping(value="/all", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<NoteDTO>> getList(String email){
-        log.info("-----------getList--------------");
-        log.info(email);
+    public ResponseEntity<List<?>> getList(String email, String cursor, Integer size, String fields, WebRequest webRequest){
+        log.debug("getList: {}, cursor: {}, fields: {}", email, cursor, fields);
+
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        boolean sparse = fields != null && !fields.isBlank();
+
+        String eTag = listETag(noteService.getListVersion(email), cursor, pageSize, sparse ? fields : null);
+
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        List<?> notes;
+        String nextCursor;
+
+        try {
+            if (sparse) {
+                SparseNotePageDTO page = noteService.getPage(email, cursor, pageSize, fields);
+                notes = page.getNotes();
+                nextCursor = page.getNextCursor();
+            } else {
+                NotePageDTO page = noteService.getPage(email, cursor, pageSize);
+                notes = page.getNotes();
+                nextCursor = page.getNextCursor();
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag);
 
-        return new ResponseEntity<>(noteService.getAllWithWriter(email), HttpStatus.OK);
+        if (nextCursor != null) {
+            builder.header("X-Next-Cursor", nextCursor);
+        }
+
+        return builder.body(notes);
+    }
+
+    /**
+     * 제목과 내용에서 검색어를 찾아 관련도(BM25) 순서로 반환합니다. email을 주면 그 작성자의 노트만 찾습니다.
+     * 서버가 시작된 직후 검색 색인을 만드는 동안에는 503을 반환합니다.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<NoteDTO>> search(String q, String email, Integer size){
+        log.debug("search: {}, email: {}", q, email);
+
+        if (q == null || q.isBlank()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        try {
+            return new ResponseEntity<>(noteService.search(q, email, pageSize), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "10").build();
+        }
+    }
+
+    /**
+     * 작성자의 모든 노트를 NDJSON(한 줄에 JSON 하나)으로 내려받습니다.
+     * StreamingResponseBody는 요청 스레드가 아닌 비동기 스레드에서 실행되고, 노트를 읽는 대로 응답에 씁니다.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam("email") String email){
+        log.debug("export: {}", email);
+
+        StreamingResponseBody body = out -> noteService.export(email, out);
+
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"notes.ndjson\"")
+                .body(body);
     }
 
     @DeleteMapping(value = "/{num}", produces = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<String> remove(@PathVariable("num") Long num){
 
-        log.info("-----------remove----------------");
-        log.info(num);
+        log.debug("remove: {}", num);
 
         noteService.remove(num);
 
         return new ResponseEntity<>("removed", HttpStatus.OK);
     }
 
+    /**
+     * 조회할 때 받은 version을 같이 보내야 합니다. (없으면 428)
+     * 그 사이에 다른 요청이 먼저 수정했으면 409를 반환하므로 다시 조회해서 수정합니다.
+     */
     @PutMapping(value = "/{num}", produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<String> modify(@RequestBody NoteDTO noteDTO){
-        log.info("------------modify-------------");
-        log.info(noteDTO);
+    public ResponseEntity<String> modify(@PathVariable("num") Long num, @RequestBody NoteDTO noteDTO){
+        log.debug("modify: {}", noteDTO);
+
+        if (noteDTO.getVersion() == null) {
+            return new ResponseEntity<>("version required", HttpStatus.PRECONDITION_REQUIRED);
+        }
 
-        noteService.modify(noteDTO);
+        noteDTO.setNum(num);
+
+        try {
+            if (!noteService.modify(noteDTO)) {
+                return new ResponseEntity<>("not found", HttpStatus.NOT_FOUND);
+            }
+        } catch (NoteVersionConflictException e) {
+            return new ResponseEntity<>("conflict", HttpStatus.CONFLICT);
+        }
 
         return new ResponseEntity<>("modified", HttpStatus.OK);
     }
 
+    private static String noteETag(Long num, LocalDateTime modDate) {
+        return "\"" + num + "-" + epochNanos(modDate) + "\"";
+    }
+
+    private static String listETag(NoteListVersionDTO version, String cursor, int size, String fields) {
+        return "\"" + version.getCount() + "-" + epochNanos(version.getLastModDate())
+                + "-" + Integer.toHexString(Objects.hash(cursor, size, fields)) + "\"";
+    }
+
+    private static String epochNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return "0";
+        }
+        return Long.toHexString(dateTime.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(dateTime.getNano());
+    }
+
 }
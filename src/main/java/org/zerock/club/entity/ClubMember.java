@@ -1,20 +1,24 @@
 package org.zerock.club.entity;
 
 import lombok.*;
+import org.zerock.club.security.cache.ClubMemberCacheListener;
 
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(value = {ClubMemberCacheListener.class})
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
-@ToString
+@ToString(exclude = {"password", "roleSet"})
 public class ClubMember extends BaseEntity{
 
     @Id
@@ -26,6 +30,13 @@ public class ClubMember extends BaseEntity{
 
     private boolean fromSocial;
 
+    // 소셜 가입시 지정된 기본 패스워드를 그대로 사용하는지 여부
+    private boolean defaultPassword;
+
+    // defaultPassword가 확인된 값인지 여부 (이 컬럼이 생기기 전에 가입한 소셜 회원은 false이고 처음 소셜 로그인할 때 확인합니다)
+    @Column(columnDefinition = "bit default 0 not null")
+    private boolean defaultPasswordChecked;
+
     @ElementCollection(fetch = FetchType.LAZY)
     @Builder.Default
     private Set<ClubMemberRole> roleSet = new HashSet<>();
@@ -34,4 +45,8 @@ public class ClubMember extends BaseEntity{
         roleSet.add(clubMemberRole);
     }
 
+    public void changePassword(String password) {
+        this.password = password;
+    }
+
 }
@@ -10,7 +10,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "membership")
+// 기본 키 컬럼은 속성 이름 순서(membership_id, user_id)로 만들어지므로 회원별 조회를 위한 인덱스를 따로 둡니다.
+@Table(name = "membership", indexes = @Index(name = "idx_membership_user_id", columnList = "user_id"))
 @ToString
 @Setter
 @Getter
@@ -26,6 +27,8 @@ public class Membership extends BaseMemberEntity implements Serializable {
 
     private boolean membershipStatus;
 
-    private int point;
+    // 스냅샷 잔액. 포인트 원장(point_ledger)에서 folded인 행이 반영된 값입니다.
+    // 예전에 int(integer 컬럼)로 만든 데이터베이스는 MembershipPointMigration이 bigint로 바꿉니다.
+    private long point;
 
 }
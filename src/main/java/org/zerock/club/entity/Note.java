@@ -1,33 +1,74 @@
 package org.zerock.club.entity;
 
 import lombok.*;
+import org.zerock.club.util.ContentCodec;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_note_writer_moddate_num", columnList = "writer_email, moddate, num"))
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
-@ToString
+@ToString(exclude = {"writer", "contentData"})
 public class Note extends  BaseEntity{
 
+    public static final String ID_GENERATOR = "note_seq";
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    public static final int PREVIEW_LENGTH = 200;
+
+    // IDENTITY는 insert마다 생성된 키를 받아와야 해서 JDBC 배치가 동작하지 않습니다.
+    // 번호를 club_sequence 테이블에서 50개씩 미리 받아오고(pooled), 기존 번호와는 NoteIdAligner가 맞춥니다.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = Note.ID_GENERATOR)
+    @TableGenerator(name = Note.ID_GENERATOR, table = "club_sequence",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "note", allocationSize = Note.ID_ALLOCATION_SIZE)
     private Long num;
 
     private String title;
 
-    private String content;
+    // 내용은 ContentCodec 형식(긴 내용은 deflate 압축)으로 저장합니다.
+    // 목록 조회는 이 컬럼을 읽지 않고 preview만 읽습니다. (NoteRepository의 SELECT_NOTE_PREVIEW)
+    @Lob
+    @Column(name = "content_data")
+    private byte[] contentData;
+
+    // 내용의 앞부분 (PREVIEW_LENGTH자)
+    @Column(length = PREVIEW_LENGTH)
+    private String preview;
 
     @ManyToOne(fetch = FetchType.LAZY)
     private ClubMember writer;
 
+    // 수정할 때마다 1씩 증가합니다. 같은 버전을 보고 동시에 수정하면 나중에 저장하는 쪽이 실패합니다.
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     public void changeTitle(String title){
         this.title = title;
     }
 
     public void changeContent(String content){
-        this.content = content;
+        this.contentData = ContentCodec.encode(content);
+        this.preview = ContentCodec.preview(content, PREVIEW_LENGTH);
+    }
+
+    public String getContent(){
+        return ContentCodec.decode(contentData);
+    }
+
+    public static class NoteBuilder {
+
+        // contentData와 preview를 같이 채웁니다.
+        public NoteBuilder content(String content){
+            this.contentData = ContentCodec.encode(content);
+            this.preview = ContentCodec.preview(content, PREVIEW_LENGTH);
+            return this;
+        }
     }
 }
@@ -0,0 +1,22 @@
+package org.zerock.club.entity;
+
+/**
+ * 포인트 원장(point_ledger)의 이벤트 종류
+ * 원장의 point는 잔액의 변화량이므로 적립은 양수, 사용/소멸은 음수입니다.
+ */
+public enum PointEventType {
+
+    // 적립
+    ACCRUAL,
+
+    // 사용
+    REDEMPTION,
+
+    // 소멸
+    EXPIRY;
+
+    public boolean allows(int point) {
+        return this == ACCRUAL ? point > 0 : point < 0;
+    }
+
+}
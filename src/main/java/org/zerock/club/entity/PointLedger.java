@@ -0,0 +1,52 @@
+package org.zerock.club.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 포인트 원장
+ *
+ * 포인트가 바뀔 때마다 한 행씩 추가만 하고, folded 말고는 수정/삭제하지 않습니다. (PointLedgerRepository.appendAll()로 JDBC 배치 insert)
+ * 멤버십의 잔액은 membership.point(스냅샷)에 이 원장에서 아직 반영하지 않은 행(folded = false)을 더한 값입니다.
+ * 스냅샷은 PointSnapshotJob이 주기적으로 반영하지 않은 행을 합쳐서 갱신하고, 같은 트랜잭션에서 그 행의 folded를 설정합니다.
+ * 원장 번호의 순서와 커밋 순서가 달라도(번호가 작은 트랜잭션이 나중에 커밋되어도) 잔액에서 빠지는 행이 없습니다.
+ */
+@Entity
+@Table(name = "point_ledger", indexes = {
+        @Index(name = "idx_point_ledger_membership_id", columnList = "user_id, membership_id, id"),
+        @Index(name = "idx_point_ledger_unfolded", columnList = "folded, user_id, membership_id")})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class PointLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "membership_id", nullable = false)
+    private String membershipId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private PointEventType type;
+
+    // 잔액의 변화량 (적립은 양수, 사용/소멸은 음수)
+    @Column(nullable = false)
+    private int point;
+
+    @Column(name = "regdate", nullable = false)
+    private LocalDateTime regDate;
+
+    // 멤버십 스냅샷(membership.point)에 반영했는지 여부
+    @Column(nullable = false, columnDefinition = "bit default 0 not null")
+    private boolean folded;
+
+}
@@ -0,0 +1,29 @@
+package org.zerock.club.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 폐기된 JWT의 jti
+ * 토큰이 만료되는 시각(expiresAt)이 지나면 더 이상 보관할 필요가 없으므로 삭제됩니다.
+ */
+@Entity
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_token_regdate", columnList = "regdate")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class RevokedToken extends BaseEntity {
+
+    @Id
+    private String jti;
+
+    private LocalDateTime expiresAt;
+
+}
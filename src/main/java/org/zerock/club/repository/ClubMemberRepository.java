@@ -2,6 +2,7 @@ package org.zerock.club.repository;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.zerock.club.entity.ClubMember;
 
@@ -13,4 +14,27 @@ public interface ClubMemberRepository extends JpaRepository<ClubMember, String>
     @Query("select m from ClubMember m where m.fromSocial =:social and m.email =:email")
     Optional<ClubMember> findByEmail(String email, boolean social);
 
+    /**
+     * 소셜 로그인 회원 등록
+     * 'insert ignore'를 사용하기 때문에 같은 이메일로 동시에 로그인이 들어와도 중복키 오류가 발생하지 않습니다.
+     * 실제로 추가된 경우에만 1을 반환합니다.
+     */
+    @Modifying
+    @Query(value = "insert ignore into club_member (email, password, name, from_social, default_password, default_password_checked, regdate, moddate) " +
+            "values (:email, :password, :name, true, true, true, now(), now())", nativeQuery = true)
+    int insertSocialMember(String email, String password, String name);
+
+    /**
+     * 기본 패스워드 사용 여부를 확인한 결과를 저장합니다. (ClubOAuthUserDetailsService)
+     * 엔티티 리스너가 실행되지 않으므로 회원 캐시는 호출하는 쪽에서 갱신합니다.
+     */
+    @Modifying
+    @Query("update ClubMember m set m.defaultPassword = :defaultPassword, m.defaultPasswordChecked = true where m.email = :email")
+    int updateDefaultPassword(String email, boolean defaultPassword);
+
+    // role은 ClubMemberRole의 ordinal
+    @Modifying
+    @Query(value = "insert ignore into club_member_role_set (club_member_email, role_set) values (:email, :role)", nativeQuery = true)
+    int insertMemberRole(String email, int role);
+
 }
@@ -0,0 +1,66 @@
+package org.zerock.club.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+/**
+ * 예전 membership.point(integer) 컬럼을 bigint로 바꿉니다.
+ *
+ * Membership.point는 long이지만 ddl-auto=update는 이미 있는 컬럼의 타입을 바꾸지 않으므로
+ * 시작할 때 컬럼이 bigint보다 작으면 alter table 한 번으로 넓힙니다.
+ * 새로 만든 데이터베이스(이미 bigint)에서는 아무것도 하지 않습니다.
+ *
+ * NoteContentMigration과 같이 @DependsOn으로 스키마(entityManagerFactory)가 만들어진 다음, 서버가 요청을 받기 전에 실행됩니다.
+ */
+@Log4j2
+@Component
+@DependsOn("entityManagerFactory")
+public class MembershipPointMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MembershipPointMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+
+        Integer type = columnType();
+
+        if (type == null || type == Types.BIGINT) {
+            return;
+        }
+
+        jdbcTemplate.execute("alter table membership modify point bigint not null");
+
+        log.info("membership.point widened to bigint (was {})", type);
+    }
+
+    // 컬럼의 java.sql.Types 값 (컬럼이 없으면 null)
+    private Integer columnType() {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            for (String column : new String[]{"point", "POINT"}) {
+                for (String table : new String[]{"membership", "MEMBERSHIP"}) {
+                    try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                        if (columns.next()) {
+                            return columns.getInt("DATA_TYPE");
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+}
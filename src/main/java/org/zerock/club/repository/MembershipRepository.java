@@ -2,20 +2,62 @@ package org.zerock.club.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.zerock.club.entity.ClubMember;
 import org.zerock.club.entity.Membership;
 import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.security.dto.MembershipDTO;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MembershipRepository extends JpaRepository<Membership, MembershipPK> {
+import static org.hibernate.jpa.QueryHints.*;
+
+public interface MembershipRepository extends JpaRepository<Membership, MembershipPK>, MembershipRepositoryCustom {
 
 //    Membership findByUserIdAndMembershipId(MembershipPK membershipPK);
 
 //    List<Membership> findByUserId(String userId);
 
-    @Query("SELECT b FROM Membership b WHERE b.membershipPK.userId = :userId")
-    List<Object[]> getMembership(@Param("userId") String userId);
+    /**
+     * 잔액 = 스냅샷(b.point) + 아직 스냅샷에 반영되지 않은 포인트 원장(folded = false)
+     * 원장은 (folded, user_id, membership_id) 인덱스의 범위만 읽고, PointSnapshotJob이 주기적으로 반영하므로 남은 행은 많지 않습니다.
+     */
+    String BALANCE = "(b.point + coalesce((select sum(l.point) from PointLedger l " +
+            "where l.folded = false and l.userId = b.membershipPK.userId and l.membershipId = b.membershipPK.membershipId), 0))";
+
+    // 엔티티 대신 MembershipDTO를 바로 만듭니다. (constructor expression)
+    @Query("SELECT new org.zerock.club.security.dto.MembershipDTO(b.membershipPK.userId, b.membershipPK.membershipId, " +
+            "b.membershipName, b.membershipStatus, " + BALANCE + ", b.startDate) " +
+            "FROM Membership b WHERE b.membershipPK.userId = :userId")
+    List<MembershipDTO> getMembershipDTOList(@Param("userId") String userId);
+
+    /**
+     * 순위표(PointLeaderboard)를 다시 만들 때 전체 멤버십을 읽어오는 스트림
+     * 트랜잭션 안에서 사용하고 반드시 close() 해야 합니다.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new org.zerock.club.security.dto.MembershipDTO(b.membershipPK.userId, b.membershipPK.membershipId, " +
+            "b.membershipName, b.membershipStatus, " + BALANCE + ", b.startDate) FROM Membership b")
+    Stream<MembershipDTO> streamAllMembershipDTO();
+
+    // 회원들의 멤버십과 잔액 (idx_membership_user_id). 순위표를 다시 만드는 동안 바뀐 멤버십의 잔액을 다시 읽을 때 사용합니다.
+    @Query("SELECT new org.zerock.club.security.dto.MembershipDTO(b.membershipPK.userId, b.membershipPK.membershipId, " +
+            "b.membershipName, b.membershipStatus, " + BALANCE + ", b.startDate) " +
+            "FROM Membership b WHERE b.membershipPK.userId in :userIds")
+    List<MembershipDTO> getMembershipDTOListIn(@Param("userIds") Collection<String> userIds);
+
+    // 회원들의 멤버십 키 (idx_membership_user_id)
+    @Query("select b.membershipPK from Membership b where b.membershipPK.userId in :userIds")
+    List<MembershipPK> getMembershipKeys(Collection<String> userIds);
+
+    // 멤버십이 없으면 empty
+    @Query("select " + BALANCE + " from Membership b " +
+            "where b.membershipPK.userId = :userId and b.membershipPK.membershipId = :membershipId")
+    Optional<Long> getBalance(String userId, String membershipId);
 
 }
@@ -0,0 +1,24 @@
+package org.zerock.club.repository;
+
+import javax.persistence.Tuple;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MembershipRepository에 Criteria 쿼리로 구현한 조회를 추가합니다. (MembershipRepositoryCustomImpl)
+ */
+public interface MembershipRepositoryCustom {
+
+    // /membership/all?fields= 에 사용할 수 있는 속성
+    SparseFields MEMBERSHIP_FIELDS = SparseFields.of(
+            "userId", "membershipPK.userId",
+            "membershipId", "membershipPK.membershipId",
+            "membershipName", "membershipName",
+            "membershipStatus", "membershipStatus",
+            "point", "point",
+            "startDate", "startDate");
+
+    // getMembershipDTOList()와 같은 조회이지만 names에 있는 속성만 조회합니다.
+    List<Tuple> getSparseMembershipList(String userId, Set<String> names);
+
+}
@@ -0,0 +1,62 @@
+package org.zerock.club.repository;
+
+import org.zerock.club.entity.Membership;
+import org.zerock.club.entity.PointLedger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class MembershipRepositoryCustomImpl implements MembershipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> getSparseMembershipList(String userId, Set<String> names) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Membership> b = query.from(Membership.class);
+
+        ParameterExpression<String> userIdParam = cb.parameter(String.class, "userId");
+
+        // point는 컬럼(스냅샷) 대신 잔액으로 조회합니다.
+        List<Selection<?>> selections = new ArrayList<>(names.size());
+
+        for (String name : names) {
+            Expression<?> expression = "point".equals(name) ? balance(cb, query, b) : MEMBERSHIP_FIELDS.path(b, name);
+            selections.add(expression.alias(name));
+        }
+
+        query.multiselect(selections)
+                .where(cb.equal(MEMBERSHIP_FIELDS.path(b, "userId"), userIdParam));
+
+        return entityManager.createQuery(query).setParameter(userIdParam, userId).getResultList();
+    }
+
+    // MembershipRepository.BALANCE와 같은 식
+    private static Expression<Long> balance(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Membership> b) {
+
+        Subquery<Long> tail = query.subquery(Long.class);
+        Root<PointLedger> l = tail.from(PointLedger.class);
+
+        tail.select(cb.sumAsLong(l.<Integer>get("point")))
+                .where(cb.isFalse(l.get("folded")),
+                        cb.equal(l.get("userId"), b.get("membershipPK").get("userId")),
+                        cb.equal(l.get("membershipId"), b.get("membershipPK").get("membershipId")));
+
+        return cb.sum(b.<Long>get("point"), cb.coalesce(tail, 0L));
+    }
+
+}
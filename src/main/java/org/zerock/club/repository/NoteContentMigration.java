@@ -0,0 +1,95 @@
+package org.zerock.club.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.zerock.club.entity.Note;
+import org.zerock.club.util.ContentCodec;
+
+import javax.annotation.PostConstruct;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 예전 note.content(문자열) 컬럼의 내용을 content_data(ContentCodec 형식)와 preview로 옮깁니다.
+ *
+ * Note 엔티티는 더 이상 content 컬럼을 사용하지 않지만 ddl-auto=update는 컬럼을 지우지 않으므로
+ * 시작할 때 아직 옮기지 않은 행을 BATCH_SIZE 건씩 옮기고 content는 null로 비웁니다.
+ * content 컬럼이 없는 데이터베이스(새로 만든 경우)에서는 아무것도 하지 않습니다.
+ *
+ * NoteIdAligner와 같이 @DependsOn으로 스키마(entityManagerFactory)가 만들어진 다음, 서버가 요청을 받기 전에 실행됩니다.
+ */
+@Log4j2
+@Component
+@DependsOn("entityManagerFactory")
+public class NoteContentMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteContentMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+
+        if (!hasLegacyColumn()) {
+            return;
+        }
+
+        long migrated = 0;
+
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "select num, content from note where content is not null order by num limit " + BATCH_SIZE);
+
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+
+            for (Map<String, Object> row : rows) {
+                String content = (String) row.get("content");
+                updates.add(new Object[]{
+                        ContentCodec.encode(content),
+                        ContentCodec.preview(content, Note.PREVIEW_LENGTH),
+                        row.get("num")});
+            }
+
+            jdbcTemplate.batchUpdate("update note set content_data = ?, preview = ?, content = null where num = ?", updates);
+
+            migrated += rows.size();
+        }
+
+        if (migrated > 0) {
+            log.info("note content migrated: {} notes", migrated);
+        }
+    }
+
+    private boolean hasLegacyColumn() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            for (String column : new String[]{"content", "CONTENT"}) {
+                for (String table : new String[]{"note", "NOTE"}) {
+                    try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                        if (columns.next()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.zerock.club.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.zerock.club.entity.Note;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Note 번호 생성 방식을 IDENTITY(auto_increment)에서 테이블(club_sequence) 방식으로 바꾸면서
+ * 이미 저장된 노트 번호와 겹치지 않도록 시작할 때 club_sequence의 값을 max(num) 이후로 맞춥니다.
+ *
+ * pooled 방식은 저장된 값(next_val)을 끝으로 하는 allocationSize개의 번호를 사용하므로
+ * next_val이 max(num) + allocationSize보다 커야 합니다. 이미 그보다 크면 아무것도 하지 않습니다.
+ *
+ * 스키마(ddl-auto)는 entityManagerFactory 빈이 만들어질 때 생성되므로 @DependsOn으로 그 다음에 만들어지게 하고,
+ * 서버가 요청을 받기 전인 @PostConstruct에서 실행합니다.
+ */
+@Log4j2
+@Component
+@DependsOn("entityManagerFactory")
+public class NoteIdAligner {
+
+    private static final String SEQUENCE_NAME = "note";
+
+    private final NoteRepository noteRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteIdAligner(NoteRepository noteRepository, JdbcTemplate jdbcTemplate) {
+        this.noteRepository = noteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+
+        Long maxNum = noteRepository.getMaxNum();
+
+        if (maxNum == null) {
+            return;
+        }
+
+        long nextVal = maxNum + Note.ID_ALLOCATION_SIZE + 1;
+
+        int updated = jdbcTemplate.update(
+                "update club_sequence set next_val = ? where sequence_name = ? and next_val < ?",
+                nextVal, SEQUENCE_NAME, nextVal);
+
+        if (updated == 0) {
+            Integer rows = jdbcTemplate.queryForObject(
+                    "select count(*) from club_sequence where sequence_name = ?", Integer.class, SEQUENCE_NAME);
+
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("insert into club_sequence (sequence_name, next_val) values (?, ?)",
+                        SEQUENCE_NAME, nextVal);
+                updated = 1;
+            }
+        }
+
+        if (updated > 0) {
+            log.info("note id sequence aligned: max(num)={}, next_val={}", maxNum, nextVal);
+        }
+    }
+
+}
@@ -1,22 +1,109 @@
 package org.zerock.club.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 import org.zerock.club.entity.Note;
+import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NoteListVersionDTO;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface NoteRepository extends JpaRepository<Note, Long> {
+import static org.hibernate.jpa.QueryHints.*;
+
+public interface NoteRepository extends JpaRepository<Note, Long>, NoteRepositoryCustom {
+
+    /**
+     * 조회용 쿼리는 엔티티 대신 NoteDTO를 바로 만듭니다. (constructor expression)
+     * 영속성 컨텍스트에 엔티티와 스냅샷이 쌓이지 않고, n.writer.email은 note 테이블의 외래 키이므로 club_member와 조인하지 않습니다.
+     *
+     * 목록은 SELECT_NOTE_PREVIEW로 내용(content_data) 컬럼을 읽지 않고 앞부분(preview)만 읽습니다.
+     */
+    String SELECT_NOTE_DTO = "select new org.zerock.club.security.dto.NoteDTO(n.num, n.title, n.contentData, n.writer.email, n.regDate, n.modDate, n.version) ";
+
+    String SELECT_NOTE_PREVIEW = "select new org.zerock.club.security.dto.NoteDTO(n.num, n.title, n.writer.email, n.regDate, n.modDate, n.version, n.preview) ";
 
     @EntityGraph(attributePaths = "writer", type = EntityGraph.EntityGraphType.LOAD)
     @Query("select n from Note n Where n.num = :num")
     Optional<Note> getWithWriter(Long num);
 
-    @EntityGraph(attributePaths = {"writer"}, type = EntityGraph.EntityGraphType.LOAD)
-    @Query("select n from Note n where n.writer.email = :email")
-    List<Note> getList (String email);
+    // 노트 한 건 (NoteCache에서 사용)
+    @Query(SELECT_NOTE_DTO + "from Note n where n.num = :num")
+    Optional<NoteDTO> getNoteDTO(Long num);
+
+    // 노트 여러 건 (NoteCache.getAll()에서 사용, 순서는 정하지 않습니다)
+    @Query(SELECT_NOTE_DTO + "from Note n where n.num in :nums")
+    List<NoteDTO> getNoteDTOs(Collection<Long> nums);
+
+    /**
+     * 버전이 같을 때만 제목/내용을 수정하고 버전을 올립니다. 조회 없이 UPDATE 한 번으로 처리합니다.
+     * 수정된 행이 0이면 노트가 없거나 다른 요청이 먼저 수정한 경우입니다.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Note n set n.title = :title, n.contentData = :contentData, n.preview = :preview, " +
+            "n.modDate = :modDate, n.version = n.version + 1 " +
+            "where n.num = :num and n.version = :version")
+    int updateWithVersion(Long num, long version, String title, byte[] contentData, String preview, LocalDateTime modDate);
+
+    /**
+     * ETag 계산용 조회
+     * 두 쿼리 모두 기본 키 또는 (writer_email, moddate, num) 인덱스만 읽습니다.
+     */
+    @Query("select n.modDate from Note n where n.num = :num")
+    Optional<LocalDateTime> getModDate(Long num);
+
+    @Query("select new org.zerock.club.security.dto.NoteListVersionDTO(count(n), max(n.modDate)) " +
+            "from Note n where n.writer.email = :email")
+    NoteListVersionDTO getListVersion(String email);
+
+    @Query(SELECT_NOTE_PREVIEW + "from Note n where n.writer.email = :email")
+    List<NoteDTO> getNoteDTOList(String email);
+
+    /**
+     * 키셋(커서) 페이징
+     * (writer_email, moddate, num) 인덱스를 역순으로 읽으면서 Pageable의 크기만큼만 가져오므로 몇 번째 페이지든 비용이 같습니다.
+     * Pageable은 크기(LIMIT)만 사용하고 page 번호는 항상 0입니다. 반환 타입이 List이므로 count 쿼리도 실행되지 않습니다.
+     */
+    @Query(SELECT_NOTE_PREVIEW + "from Note n where n.writer.email = :email order by n.modDate desc, n.num desc")
+    List<NoteDTO> getFirstPage(String email, Pageable pageable);
+
+    @Query(SELECT_NOTE_PREVIEW + "from Note n where n.writer.email = :email " +
+            "and (n.modDate < :modDate or (n.modDate = :modDate and n.num < :num)) " +
+            "order by n.modDate desc, n.num desc")
+    List<NoteDTO> getPageAfter(String email, LocalDateTime modDate, Long num, Pageable pageable);
+
+    /**
+     * 내보내기(export)용 전진 전용(forward-only) 스트림
+     * 결과 전체를 한번에 읽지 않고 fetch size 단위로 읽어옵니다. 트랜잭션 안에서 사용하고 반드시 close() 해야 합니다.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_NOTE_DTO + "from Note n where n.writer.email = :email order by n.num")
+    Stream<NoteDTO> streamByWriter(String email);
+
+    /**
+     * 검색 색인(NoteSearchIndex)을 다시 만들 때 전체 노트를 읽어오는 스트림
+     * 트랜잭션 안에서 사용하고 반드시 close() 해야 합니다.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_NOTE_DTO + "from Note n")
+    Stream<NoteDTO> streamAllNoteDTO();
+
+    // NoteIdAligner에서 사용 (노트가 없으면 null)
+    @Query("select max(n.num) from Note n")
+    Long getMaxNum();
 
     /**
      * ClubMember를 @EntityGraph를 사용해서 처리할 때 ClubMember의 roleSet이 toString()에 사용되지 않도록
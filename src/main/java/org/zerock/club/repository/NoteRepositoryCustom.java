@@ -0,0 +1,31 @@
+package org.zerock.club.repository;
+
+import org.zerock.club.security.dto.NoteCursor;
+
+import javax.persistence.Tuple;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NoteRepository에 Criteria 쿼리로 구현한 조회를 추가합니다. (NoteRepositoryCustomImpl)
+ */
+public interface NoteRepositoryCustom {
+
+    // /notes/all?fields= 에 사용할 수 있는 속성 (내용은 목록에서 제공하지 않습니다)
+    SparseFields NOTE_FIELDS = SparseFields.of(
+            "num", "num",
+            "title", "title",
+            "writerEmail", "writer.email",
+            "regDate", "regDate",
+            "modDate", "modDate",
+            "version", "version",
+            "preview", "preview");
+
+    /**
+     * getFirstPage()/getPageAfter()와 같은 키셋 페이징이지만 names에 있는 속성만 조회합니다.
+     * 다음 커서를 만들 수 있도록 num과 modDate는 항상 같이 조회합니다. (둘 다 인덱스에 있는 컬럼)
+     * after가 null이면 첫 페이지입니다.
+     */
+    List<Tuple> getSparsePage(String email, NoteCursor after, Set<String> names, int limit);
+
+}
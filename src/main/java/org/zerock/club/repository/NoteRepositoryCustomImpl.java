@@ -0,0 +1,69 @@
+package org.zerock.club.repository;
+
+import org.zerock.club.entity.Note;
+import org.zerock.club.security.dto.NoteCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class NoteRepositoryCustomImpl implements NoteRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> getSparsePage(String email, NoteCursor after, Set<String> names, int limit) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Note> n = query.from(Note.class);
+
+        Set<String> selected = new LinkedHashSet<>(names);
+        selected.add("num");
+        selected.add("modDate");
+
+        Path<Long> num = n.get("num");
+        Path<LocalDateTime> modDate = n.get("modDate");
+
+        // 값은 모두 파라미터로 바인딩합니다. (Hibernate는 Criteria의 숫자 리터럴을 SQL에 그대로 넣어서 커서마다 다른 SQL이 됩니다)
+        ParameterExpression<String> emailParam = cb.parameter(String.class, "email");
+        ParameterExpression<LocalDateTime> modDateParam = cb.parameter(LocalDateTime.class, "modDate");
+        ParameterExpression<Long> numParam = cb.parameter(Long.class, "num");
+
+        // n.writer.email은 note 테이블의 외래 키이므로 club_member와 조인하지 않습니다.
+        Predicate where = cb.equal(n.get("writer").get("email"), emailParam);
+
+        if (after != null) {
+            where = cb.and(where, cb.or(
+                    cb.lessThan(modDate, modDateParam),
+                    cb.and(cb.equal(modDate, modDateParam), cb.lessThan(num, numParam))));
+        }
+
+        query.multiselect(NOTE_FIELDS.select(n, selected))
+                .where(where)
+                .orderBy(cb.desc(modDate), cb.desc(num));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query)
+                .setParameter(emailParam, email)
+                .setMaxResults(limit);
+
+        if (after != null) {
+            typedQuery.setParameter(modDateParam, after.getModDate()).setParameter(numParam, after.getNum());
+        }
+
+        return typedQuery.getResultList();
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.zerock.club.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.zerock.club.entity.PointLedger;
+import org.zerock.club.security.dto.PointEventDTO;
+
+import java.util.List;
+
+public interface PointLedgerRepository extends JpaRepository<PointLedger, Long>, PointLedgerRepositoryCustom {
+
+    String SELECT_POINT_EVENT_DTO = "select new org.zerock.club.security.dto.PointEventDTO(l.id, l.userId, l.membershipId, l.type, l.point, l.regDate) ";
+
+    /**
+     * 키셋(커서) 페이징 (최근 이벤트부터)
+     * (user_id, membership_id, id) 인덱스를 역순으로 읽으므로 몇 번째 페이지든 비용이 같습니다.
+     */
+    @Query(SELECT_POINT_EVENT_DTO + "from PointLedger l where l.userId = :userId and l.membershipId = :membershipId " +
+            "order by l.id desc")
+    List<PointEventDTO> getFirstHistoryPage(String userId, String membershipId, Pageable pageable);
+
+    @Query(SELECT_POINT_EVENT_DTO + "from PointLedger l where l.userId = :userId and l.membershipId = :membershipId " +
+            "and l.id < :before order by l.id desc")
+    List<PointEventDTO> getHistoryBefore(String userId, String membershipId, Long before, Pageable pageable);
+
+    /**
+     * 멤버십의 반영하지 않은 원장을 모두 반영한 것으로 표시합니다. (MembershipService.register()에서 사용)
+     * 삭제한 멤버십을 다시 등록할 때 이전 원장이 새 잔액에 포함되지 않도록 합니다.
+     */
+    @Modifying
+    @Query("update PointLedger l set l.folded = true " +
+            "where l.userId = :userId and l.membershipId = :membershipId and l.folded = false")
+    int markFolded(String userId, String membershipId);
+
+}
@@ -0,0 +1,18 @@
+package org.zerock.club.repository;
+
+import org.zerock.club.security.dto.PointEventDTO;
+
+import java.util.List;
+
+/**
+ * PointLedgerRepository에 JdbcTemplate으로 구현한 저장을 추가합니다. (PointLedgerRepositoryCustomImpl)
+ */
+public interface PointLedgerRepositoryCustom {
+
+    /**
+     * 원장에 이벤트를 JDBC 배치 insert로 추가합니다. regDate가 없으면 지금 시각으로 저장합니다.
+     * membership 테이블은 읽지도 잠그지도 않습니다. 호출하는 쪽의 트랜잭션 안에서 실행됩니다.
+     */
+    void appendAll(List<PointEventDTO> events);
+
+}
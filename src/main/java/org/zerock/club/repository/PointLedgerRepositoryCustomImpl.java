@@ -0,0 +1,51 @@
+package org.zerock.club.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.zerock.club.security.dto.PointEventDTO;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class PointLedgerRepositoryCustomImpl implements PointLedgerRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "insert into point_ledger (user_id, membership_id, type, point, regdate, folded) values (?, ?, ?, ?, ?, false)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PointLedgerRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendAll(List<PointEventDTO> events) {
+
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PointEventDTO event = events.get(i);
+                ps.setString(1, event.getUserId());
+                ps.setString(2, event.getMembershipId());
+                ps.setString(3, event.getType().name());
+                ps.setInt(4, event.getPoint());
+                ps.setTimestamp(5, event.getRegDate() == null ? now : Timestamp.valueOf(event.getRegDate()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+}
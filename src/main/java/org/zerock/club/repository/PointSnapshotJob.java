@@ -0,0 +1,224 @@
+package org.zerock.club.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.entity.MembershipPK;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 포인트 원장(point_ledger)을 멤버십의 스냅샷(membership.point)에 반영하는 작업
+ *
+ * 아직 반영하지 않은 원장(folded = false)을 segment-size개씩 읽어서 멤버십별로 합치고,
+ * 트랜잭션 하나에서 그 원장의 folded를 설정한 다음 멤버십마다 UPDATE 한 번(JDBC 배치)으로 스냅샷에 더합니다.
+ * 원장 번호가 아니라 행마다 반영 여부를 기록하므로, 번호가 작은 트랜잭션이 나중에 커밋되어도 그 원장은 다음 실행에서 반영됩니다.
+ *
+ * folded는 읽었을 때 반영하지 않은 행만 설정하고, 설정한 행 수가 읽은 행 수와 다르면(다른 서버가 먼저 반영) 롤백하므로
+ * 여러 서버가 동시에 실행해도 두 번 반영되지 않습니다.
+ * 반영하면 스냅샷이 long 범위를 넘는 멤버십의 원장은 그대로 두고, 잔액 조회(MembershipRepository.BALANCE)에 계속 포함됩니다.
+ * 구간은 원장 번호 순서로 앞 구간의 마지막 번호 다음부터 읽으므로(keyset) 반영하지 못한 원장이 뒤의 원장을 막지 않습니다.
+ */
+@Log4j2
+@Component
+public class PointSnapshotJob implements MeterBinder {
+
+    // 아직 반영하지 않은 원장과 그 멤버십의 스냅샷 (멤버십이 없으면 null)
+    private static final String UNFOLDED_SQL =
+            "select l.id, l.user_id, l.membership_id, l.point, b.point " +
+            "from point_ledger l left join membership b on b.user_id = l.user_id and b.membership_id = l.membership_id " +
+            "where l.folded = false and l.id > ? order by l.id limit ?";
+
+    private static final String MARK_SQL = "update point_ledger set folded = true where folded = false and id in (%s)";
+
+    private static final String UPDATE_SQL = "update membership set point = point + ? where user_id = ? and membership_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int segmentSize;
+
+    // 마지막 실행이 끝났을 때 반영하지 않은 원장 수
+    private volatile long unfolded;
+
+    public PointSnapshotJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            @Value("${club.membership.ledger.segment-size:10000}") int segmentSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * 커밋된 원장을 모두 반영하고, 반영한 멤버십 수(구간마다 센 합계)를 반환합니다.
+     */
+    @Scheduled(fixedDelayString = "${club.membership.ledger.snapshot-interval-ms:10000}",
+            initialDelayString = "${club.membership.ledger.snapshot-interval-ms:10000}")
+    public synchronized int fold() {
+
+        int count = 0;
+
+        long lastId = 0;
+
+        while (true) {
+            Segment segment;
+            long after = lastId;
+
+            try {
+                segment = transactionTemplate.execute(status -> {
+                    Segment result = foldSegment(after);
+
+                    if (result.conflict) {
+                        status.setRollbackOnly();
+                    }
+                    return result;
+                });
+            } catch (RuntimeException e) {
+                // 롤백되었으므로 다음 실행에서 다시 반영합니다.
+                log.error("point ledger fold failed", e);
+                break;
+            }
+
+            if (segment.conflict) {
+                log.debug("point ledger fold conflicted with another server");
+                break;
+            }
+
+            count += segment.memberships;
+            lastId = segment.lastId;
+
+            // 마지막 구간이면 끝냅니다.
+            if (segment.read < segmentSize) {
+                break;
+            }
+        }
+
+        Long remaining = jdbcTemplate.queryForObject("select count(*) from point_ledger where folded = false", Long.class);
+        unfolded = remaining == null ? 0 : remaining;
+
+        if (count > 0) {
+            log.debug("point ledger folded: {} memberships, {} rows left", count, unfolded);
+        }
+        return count;
+    }
+
+    // afterId보다 번호가 큰 원장을 segment-size개까지 반영합니다.
+    private Segment foldSegment(long afterId) {
+
+        Map<MembershipPK, Fold> folds = new LinkedHashMap<>();
+
+        long[] lastId = {afterId};
+
+        int read = jdbcTemplate.query(UNFOLDED_SQL, rs -> {
+            int rows = 0;
+
+            while (rs.next()) {
+                MembershipPK key = new MembershipPK(rs.getString(2), rs.getString(3));
+                long snapshot = rs.getLong(5);
+                boolean orphan = rs.wasNull();
+
+                Fold fold = folds.computeIfAbsent(key, k -> new Fold());
+                lastId[0] = rs.getLong(1);
+                fold.ids.add(lastId[0]);
+                fold.point += rs.getInt(4);
+                fold.snapshot = snapshot;
+                fold.orphan = orphan;
+                rows++;
+            }
+            return rows;
+        }, afterId, segmentSize);
+
+        List<Long> ids = new ArrayList<>(read);
+        List<Object[]> updates = new ArrayList<>(folds.size());
+
+        folds.forEach((key, fold) -> {
+            if (fold.orphan) {
+                // 삭제된 멤버십의 원장은 반영할 곳이 없으므로 반영한 것으로 표시만 합니다.
+                ids.addAll(fold.ids);
+                return;
+            }
+
+            long point = fold.snapshot + fold.point;
+
+            // long 덧셈이 넘친 경우 (Math.addExact와 같은 검사)
+            if (((fold.snapshot ^ point) & (fold.point ^ point)) < 0) {
+                log.warn("point ledger fold skipped (out of range): {}/{}", key.getUserId(), key.getMembershipId());
+                return;
+            }
+
+            ids.addAll(fold.ids);
+            updates.add(new Object[]{fold.point, key.getUserId(), key.getMembershipId()});
+        });
+
+        if (ids.isEmpty()) {
+            return new Segment(read, lastId[0], 0, false);
+        }
+
+        String sql = String.format(MARK_SQL, String.join(",", Collections.nCopies(ids.size(), "?")));
+
+        if (jdbcTemplate.update(sql, ids.toArray()) != ids.size()) {
+            return new Segment(read, lastId[0], 0, true);
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+
+        return new Segment(read, lastId[0], updates.size(), false);
+    }
+
+    // 마지막 실행이 끝났을 때 아직 스냅샷에 반영하지 않은 원장 수
+    public long unfolded() {
+        return unfolded;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("membership.points.ledger.unfolded", this, PointSnapshotJob::unfolded)
+                .description("number of point ledger rows not yet folded into membership snapshots")
+                .register(registry);
+    }
+
+    // 멤버십 하나의 반영할 원장
+    private static class Fold {
+
+        final List<Long> ids = new ArrayList<>();
+
+        long point;
+
+        long snapshot;
+
+        boolean orphan;
+    }
+
+    // 구간 하나의 결과: 읽은 원장 수, 마지막으로 읽은 원장 번호, 반영한 멤버십 수, 다른 서버와 충돌했는지
+    private static class Segment {
+
+        final int read;
+
+        final long lastId;
+
+        final int memberships;
+
+        final boolean conflict;
+
+        Segment(int read, long lastId, int memberships, boolean conflict) {
+            this.read = read;
+            this.lastId = lastId;
+            this.memberships = memberships;
+            this.conflict = conflict;
+        }
+    }
+
+}
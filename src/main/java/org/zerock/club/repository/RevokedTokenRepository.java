@@ -0,0 +1,26 @@
+package org.zerock.club.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import org.zerock.club.entity.RevokedToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // 아직 만료되지 않은 폐기 토큰 (시작할 때 메모리로 읽어들이는 용도)
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // 다른 서버에서 새로 폐기된 토큰
+    @Query("select r from RevokedToken r where r.regDate > :since and r.expiresAt > :now")
+    List<RevokedToken> getRevokedSince(LocalDateTime since, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(LocalDateTime now);
+
+}
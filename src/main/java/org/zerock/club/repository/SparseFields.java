@@ -0,0 +1,109 @@
+package org.zerock.club.repository;
+
+import javax.persistence.Tuple;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fields= 파라미터로 고른 속성만 조회하기 (sparse fieldset)
+ *
+ * 응답 속성 이름과 엔티티 경로("writer.email"처럼 점으로 구분)를 미리 등록해두고,
+ * 요청한 속성만 Criteria 쿼리의 select 절(Tuple)에 넣으므로 나머지 컬럼은 읽지 않습니다.
+ * 등록되지 않은 이름은 IllegalArgumentException 입니다.
+ */
+public final class SparseFields {
+
+    private final Map<String, String[]> paths = new LinkedHashMap<>();
+
+    private SparseFields() {
+    }
+
+    // name, path, name, path ...
+    public static SparseFields of(String... namesAndPaths) {
+
+        SparseFields sparseFields = new SparseFields();
+
+        for (int i = 0; i + 1 < namesAndPaths.length; i += 2) {
+            sparseFields.paths.put(namesAndPaths[i], namesAndPaths[i + 1].split("\\."));
+        }
+        return sparseFields;
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(paths.keySet());
+    }
+
+    /**
+     * "title,modDate" -> [title, modDate] (요청한 순서, 중복 제거)
+     * 비어 있으면 빈 Set을 반환합니다.
+     */
+    public Set<String> parse(String fields) {
+
+        Set<String> names = new LinkedHashSet<>();
+
+        if (fields == null) {
+            return names;
+        }
+
+        for (String name : fields.split(",")) {
+            name = name.trim();
+
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!paths.containsKey(name)) {
+                throw new IllegalArgumentException("unknown field: " + name + " (allowed: " + paths.keySet() + ")");
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    // 속성 이름을 별칭(alias)으로 붙인 select 절
+    public List<Selection<?>> select(Root<?> root, Collection<String> names) {
+
+        List<Selection<?>> selections = new ArrayList<>(names.size());
+
+        for (String name : names) {
+            selections.add(path(root, name).alias(name));
+        }
+        return selections;
+    }
+
+    public Path<?> path(Root<?> root, String name) {
+
+        String[] path = paths.get(name);
+
+        if (path == null) {
+            throw new IllegalArgumentException("unknown field: " + name);
+        }
+
+        Path<?> result = root;
+
+        for (String attribute : path) {
+            result = result.get(attribute);
+        }
+        return result;
+    }
+
+    // 응답용 Map (names에 있는 속성만, names의 순서대로)
+    public static Map<String, Object> toMap(Tuple tuple, Collection<String> names) {
+
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        for (String name : names) {
+            map.put(name, tuple.get(name));
+        }
+        return map;
+    }
+
+}
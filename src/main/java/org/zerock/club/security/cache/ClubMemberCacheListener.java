@@ -0,0 +1,44 @@
+package org.zerock.club.security.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.zerock.club.entity.ClubMember;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * ClubMember가 저장/삭제되면 MemberCache의 엔트리를 제거하는 엔티티 리스너
+ *
+ * 스프링 부트는 Hibernate의 BeanContainer로 스프링을 사용하기 때문에 엔티티 리스너도 빈을 주입받을 수 있습니다.
+ * 트랜잭션 안에서 저장된 경우에는 커밋 이전의 값이 다시 캐시에 올라갈 수 있으므로 커밋 이후에도 한번 더 제거합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClubMemberCacheListener {
+
+    private final MemberCache memberCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(ClubMember clubMember) {
+
+        String email = clubMember.getEmail();
+
+        memberCache.invalidate(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    memberCache.invalidate(email);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.zerock.club.security.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zerock.club.entity.ClubMember;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * loadUserByUsername() 앞에 두는 회원 캐시
+ *
+ * 폼 로그인, remember-me 자동 로그인, /api/login 모두 매번 roleSet을 조인하는 findByEmail()을 실행하고
+ * 권한 목록을 새로 만들었습니다. 조회 결과를 MemberSnapshot으로 만들어서 크기(maximum-size)와 TTL 범위 안에서 보관합니다.
+ *
+ * ClubMember가 저장되면 ClubMemberCacheListener가 해당 이메일의 엔트리를 지웁니다.
+ * 히트율은 'cache.*{cache=member}'와 'cache.hit.ratio{cache=member}' 메트릭으로 확인할 수 있습니다.
+ */
+@Log4j2
+@Component
+public class MemberCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "member";
+
+    private final Cache<String, MemberSnapshot> cache;
+
+    public MemberCache(@Value("${club.member.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${club.member.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 캐시에 없으면 loader로 조회한 결과를 스냅샷으로 만들어서 보관합니다.
+     * 존재하지 않는 회원은 캐시하지 않습니다.
+     */
+    public Optional<MemberSnapshot> get(String email, boolean social, Supplier<Optional<ClubMember>> loader) {
+        return Optional.ofNullable(cache.get(key(email, social),
+                k -> loader.get().map(MemberSnapshot::of).orElse(null)));
+    }
+
+    public void put(MemberSnapshot snapshot) {
+        cache.put(key(snapshot.getEmail(), snapshot.isFromSocial()), snapshot);
+    }
+
+    // 소셜/일반 구분 없이 해당 이메일의 엔트리를 모두 제거
+    public void invalidate(String email) {
+        log.debug("invalidate member cache: {}", email);
+        cache.invalidate(key(email, true));
+        cache.invalidate(key(email, false));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("hit ratio of the member cache")
+                .register(registry);
+    }
+
+    private static String key(String email, boolean social) {
+        return (social ? "S:" : "L:") + email;
+    }
+
+}
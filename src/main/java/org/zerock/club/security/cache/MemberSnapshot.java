@@ -0,0 +1,75 @@
+package org.zerock.club.security.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.zerock.club.entity.ClubMember;
+import org.zerock.club.entity.ClubMemberRole;
+import org.zerock.club.security.dto.ClubAuthMemberDTO;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 캐시에 보관하는 회원 정보의 불변 스냅샷
+ *
+ * 엔티티(ClubMember)는 영속성 컨텍스트에 묶여 있고 roleSet이 지연 로딩이기 때문에 그대로 캐시에 넣지 않습니다.
+ * 권한(GrantedAuthority)도 스냅샷을 만들 때 한번만 만들어 둡니다.
+ */
+@Getter
+@ToString(exclude = "password")
+public class MemberSnapshot {
+
+    private final String email;
+
+    private final String password;
+
+    private final String name;
+
+    private final boolean fromSocial;
+
+    private final boolean defaultPassword;
+
+    private final boolean defaultPasswordChecked;
+
+    private final Set<ClubMemberRole> roles;
+
+    private final Set<GrantedAuthority> authorities;
+
+    private MemberSnapshot(ClubMember clubMember) {
+        this.email = clubMember.getEmail();
+        this.password = clubMember.getPassword();
+        this.name = clubMember.getName();
+        this.fromSocial = clubMember.isFromSocial();
+        this.defaultPassword = clubMember.isDefaultPassword();
+        this.defaultPasswordChecked = clubMember.isDefaultPasswordChecked();
+
+        Set<ClubMemberRole> roleSet = clubMember.getRoleSet().isEmpty()
+                ? EnumSet.noneOf(ClubMemberRole.class) : EnumSet.copyOf(clubMember.getRoleSet());
+        this.roles = Collections.unmodifiableSet(roleSet);
+
+        Set<GrantedAuthority> authoritySet = new LinkedHashSet<>();
+        roleSet.forEach(role -> authoritySet.add(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.authorities = Collections.unmodifiableSet(authoritySet);
+    }
+
+    public static MemberSnapshot of(ClubMember clubMember) {
+        return new MemberSnapshot(clubMember);
+    }
+
+    /**
+     * 인증 과정에서 ProviderManager가 credentials를 지우기 때문에(eraseCredentials) 호출할 때마다 새로 만듭니다.
+     */
+    public ClubAuthMemberDTO toAuthMember() {
+        ClubAuthMemberDTO clubAuthMember = new ClubAuthMemberDTO(email, password, fromSocial, authorities);
+
+        clubAuthMember.setName(name);
+        clubAuthMember.setDefaultPassword(defaultPassword);
+
+        return clubAuthMember;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.zerock.club.security.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.zerock.club.repository.MembershipRepository;
+import org.zerock.club.security.dto.MembershipDTO;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원(userId)별 멤버십 카드 목록 캐시 (MembershipService.getAll(), get())
+ *
+ * 앱을 실행할 때마다 /membership/all을 호출하므로 회원의 멤버십 목록(잔액 포함)을 통째로 보관합니다.
+ * 같은 회원을 동시에 조회해도 데이터베이스 조회는 한번만 실행됩니다.
+ * 목록은 수정할 수 없는 List이고, 안의 MembershipDTO도 수정하면 안 됩니다.
+ *
+ * 멤버십 등록/삭제와 포인트 원장 추가(적립/사용/소멸) 때 회원의 목록을 제거합니다.
+ * 스냅샷 반영(PointSnapshotJob)은 잔액을 바꾸지 않으므로 제거하지 않습니다.
+ * 다른 서버에서 바뀐 경우를 위해서 ttl-seconds가 지나면 다시 조회합니다.
+ * 히트율은 'cache.*{cache=membership}', 'cache.hit.ratio{cache=membership}'로 확인할 수 있습니다.
+ */
+@Log4j2
+@Component
+public class MembershipCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "membership";
+
+    private final LoadingCache<String, List<MembershipDTO>> cache;
+
+    public MembershipCache(MembershipRepository membershipRepository,
+                           @Value("${club.membership.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${club.membership.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build(userId -> Collections.unmodifiableList(membershipRepository.getMembershipDTOList(userId)));
+    }
+
+    // 멤버십이 없는 회원은 빈 목록 (캐시합니다)
+    public List<MembershipDTO> get(String userId) {
+        return cache.get(userId);
+    }
+
+    // 캐시에 있는 값만 확인하고 조회하지는 않습니다.
+    public List<MembershipDTO> getIfPresent(String userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * 트랜잭션 안에서 호출되면 커밋 전에 한번, 커밋 이후에 한번 더 제거합니다.
+     * 커밋 전에 다른 요청이 이전 값을 다시 읽어갈 수 있기 때문입니다.
+     */
+    public void invalidate(String userId) {
+        log.debug("invalidate membership cache: {}", userId);
+
+        cache.invalidate(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("hit ratio of the membership cache")
+                .register(registry);
+    }
+
+}
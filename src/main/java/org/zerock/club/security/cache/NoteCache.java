@@ -0,0 +1,138 @@
+package org.zerock.club.security.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.zerock.club.repository.NoteRepository;
+import org.zerock.club.security.dto.NoteDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NoteService.get() 앞에 두는 NoteDTO 캐시 (read-through)
+ *
+ * 노트는 쓰기보다 읽기가 훨씬 많기 때문에 한번 조회한 NoteDTO를 번호(num)로 보관합니다.
+ * 같은 번호를 동시에 조회해도 데이터베이스 조회는 한번만 실행되고 나머지는 그 결과를 기다립니다.
+ * 여러 번호를 한번에 찾을 때(getAll)는 캐시에 없는 번호만 모아서 'in' 조회 한 번으로 가져오고, 그 결과는 캐시에 넣지 않습니다.
+ * Caffeine의 bulk load는 조회와 저장 사이에 번호별 락을 잡지 않아서, 그 사이에 커밋된 수정의 invalidate가 지나간 다음
+ * 이전 값을 저장할 수 있기 때문입니다. 캐시에 넣는 것은 번호별로 invalidate와 직렬화되는 get()뿐입니다.
+ *
+ * 엔트리마다 내용(content) 길이만큼의 무게를 주고 전체 무게(maximum-weight)로 크기를 제한합니다.
+ * 엔트리마다 기본 무게(ENTRY_OVERHEAD)가 있으므로 엔트리 수도 maximum-weight / ENTRY_OVERHEAD를 넘지 않습니다.
+ *
+ * 수정/삭제된 노트는 커밋 이후에 제거되므로 같은 서버에서는 PUT 이후에 이전 값이 보이지 않습니다.
+ * 다른 서버에서 수정된 경우를 위해서 ttl-seconds가 지나면 다시 조회합니다.
+ * 히트율과 조회 시간은 'cache.*{cache=note}', 'cache.load.duration{cache=note}', 'cache.hit.ratio{cache=note}'로 확인할 수 있습니다.
+ */
+@Log4j2
+@Component
+public class NoteCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "note";
+
+    // 엔트리 하나의 기본 무게 (번호, 제목, 작성자, 날짜 등)
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final NoteRepository noteRepository;
+
+    private final LoadingCache<Long, NoteDTO> cache;
+
+    public NoteCache(NoteRepository noteRepository,
+                     @Value("${club.note.cache.maximum-weight:8388608}") long maximumWeight,
+                     @Value("${club.note.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.noteRepository = noteRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Long num, NoteDTO note) -> weigh(note))
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build(num -> noteRepository.getNoteDTO(num).orElse(null));
+    }
+
+    // 존재하지 않는 노트는 null (캐시하지 않습니다)
+    public NoteDTO get(Long num) {
+        return cache.get(num);
+    }
+
+    // 존재하지 않는 노트는 결과에 없습니다. 캐시에 없던 노트는 조회만 하고 캐시하지 않습니다.
+    public Map<Long, NoteDTO> getAll(Collection<Long> nums) {
+
+        Map<Long, NoteDTO> notes = new HashMap<>(cache.getAllPresent(nums));
+
+        List<Long> misses = new ArrayList<>();
+
+        for (Long num : nums) {
+            if (!notes.containsKey(num)) {
+                misses.add(num);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            noteRepository.getNoteDTOs(misses).forEach(note -> notes.put(note.getNum(), note));
+        }
+        return notes;
+    }
+
+    // 캐시에 있는 값만 확인하고 조회하지는 않습니다.
+    public NoteDTO getIfPresent(Long num) {
+        return cache.getIfPresent(num);
+    }
+
+    /**
+     * 트랜잭션 안에서 호출되면 커밋 전에 한번, 커밋 이후에 한번 더 제거합니다.
+     * 커밋 전에 다른 요청이 이전 값을 다시 읽어갈 수 있기 때문입니다.
+     */
+    public void invalidate(Long num) {
+        log.debug("invalidate note cache: {}", num);
+
+        cache.invalidate(num);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(num);
+                }
+            });
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("hit ratio of the note cache")
+                .register(registry);
+    }
+
+    private static int weigh(NoteDTO note) {
+        int title = note.getTitle() == null ? 0 : note.getTitle().length();
+        int content = note.getContent() == null ? 0 : note.getContent().length();
+        return ENTRY_OVERHEAD + title + content;
+    }
+
+}
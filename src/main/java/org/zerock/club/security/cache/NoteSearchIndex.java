@@ -0,0 +1,243 @@
+package org.zerock.club.security.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.repository.NoteRepository;
+import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.util.search.InvertedIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * 노트 제목/내용의 검색 색인 (/notes/search)
+ *
+ * NoteServiceImpl이 노트를 등록/수정/삭제할 때마다 커밋 이후에 색인을 갱신합니다.
+ * 시작할 때는 백그라운드 스레드에서 전체 노트를 읽어 새 색인을 만들고, 그동안 들어온 변경을 다시 적용한 다음 교체합니다.
+ * 새 색인이 준비되기 전에는 search()가 IllegalStateException을 던집니다.
+ * 다시 만들지 못하면(데이터베이스 장애 등) retry-initial-ms부터 두 배씩, 최대 retry-max-ms 간격으로 성공할 때까지 다시 시도합니다.
+ * 준비 여부와 실패 횟수는 'notes.search.index.ready', 'notes.search.index.rebuild.failures'로 확인할 수 있습니다.
+ *
+ * 검색은 읽기 락, 갱신은 쓰기 락을 사용하므로 검색끼리는 동시에 실행됩니다.
+ * 색인은 서버마다 따로 가지고 있으므로 다른 서버의 변경은 재시작할 때 반영됩니다.
+ */
+@Log4j2
+@Component
+public class NoteSearchIndex implements MeterBinder {
+
+    private final NoteRepository noteRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // lock으로 보호
+    private InvertedIndex index = new InvertedIndex();
+
+    // 다시 만드는 동안 들어온 변경 (lock으로 보호, 다시 만드는 중이 아니면 null)
+    private List<Consumer<InvertedIndex>> pending;
+
+    private final long retryInitialMillis;
+
+    private final long retryMaxMillis;
+
+    private volatile boolean ready;
+
+    // 다시 만들기에 실패한 횟수 (누적)
+    private volatile long failures;
+
+    public NoteSearchIndex(NoteRepository noteRepository, PlatformTransactionManager transactionManager,
+                           @Value("${club.notes.search.rebuild.retry-initial-ms:1000}") long retryInitialMillis,
+                           @Value("${club.notes.search.rebuild.retry-max-ms:60000}") long retryMaxMillis) {
+        this.noteRepository = noteRepository;
+        this.transactionManager = transactionManager;
+        this.retryInitialMillis = retryInitialMillis;
+        this.retryMaxMillis = retryMaxMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuildWithRetry, "note-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 성공할 때까지 간격을 두 배씩 늘리면서 다시 만듭니다.
+    private void rebuildWithRetry() {
+
+        long delay = retryInitialMillis;
+
+        while (!rebuild()) {
+            log.warn("note search index rebuild will be retried in {}ms", delay);
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            delay = Math.min(delay * 2, retryMaxMillis);
+        }
+    }
+
+    /**
+     * 전체 노트를 스트림으로 읽어서 새 색인을 만들고 현재 색인과 교체합니다. 실패하면 현재 색인을 그대로 두고 false를 반환합니다.
+     */
+    public boolean rebuild() {
+
+        long start = System.currentTimeMillis();
+
+        write(() -> pending = new ArrayList<>());
+
+        InvertedIndex rebuilt = new InvertedIndex();
+
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<NoteDTO> stream = noteRepository.streamAllNoteDTO()) {
+                    stream.forEach(note -> rebuilt.add(note.getNum(), note.getWriterEmail(), note.getTitle(), note.getContent()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("note search index rebuild failed", e);
+            write(() -> pending = null);
+            failures++;
+            return false;
+        }
+
+        write(() -> {
+            pending.forEach(change -> change.accept(rebuilt));
+            pending = null;
+            index = rebuilt;
+        });
+
+        ready = true;
+
+        log.info("note search index rebuilt: {} notes, {} terms in {}ms",
+                rebuilt.size(), rebuilt.termCount(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long failures() {
+        return failures;
+    }
+
+    /**
+     * 점수가 높은 순서로 노트 번호를 반환합니다. email이 null이면 모든 작성자의 노트를 검색합니다.
+     */
+    public long[] search(String query, String email, int limit) {
+
+        if (!ready) {
+            throw new IllegalStateException("note search index is not ready");
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.search(query, email, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 트랜잭션 안에서 호출되면 커밋 이후에 반영합니다.
+    public void add(NoteDTO note) {
+        afterCommit(index -> index.add(note.getNum(), note.getWriterEmail(), note.getTitle(), note.getContent()));
+    }
+
+    // 작성자는 그대로 두고 제목/내용만 바꿉니다.
+    public void update(Long num, String title, String content) {
+        afterCommit(index -> index.update(num, title, content));
+    }
+
+    public void remove(Long num) {
+        afterCommit(index -> index.remove(num));
+    }
+
+    public int size() {
+        return read(InvertedIndex::size);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notes.search.index.size", this, NoteSearchIndex::size)
+                .description("number of notes in the search index")
+                .register(registry);
+
+        Gauge.builder("notes.search.index.terms", this, s -> s.read(InvertedIndex::termCount))
+                .description("number of distinct terms in the search index")
+                .register(registry);
+
+        Gauge.builder("notes.search.index.ready", this, s -> s.isReady() ? 1 : 0)
+                .description("1 if the search index has been built, 0 while /notes/search returns 503")
+                .register(registry);
+
+        Gauge.builder("notes.search.index.rebuild.failures", this, NoteSearchIndex::failures)
+                .description("number of failed search index rebuilds")
+                .register(registry);
+    }
+
+    private void afterCommit(Consumer<InvertedIndex> change) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        write(() -> {
+            change.accept(index);
+
+            if (pending != null) {
+                pending.add(change);
+            }
+        });
+    }
+
+    private void write(Runnable runnable) {
+        lock.writeLock().lock();
+        try {
+            runnable.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int read(ToIntFunction<InvertedIndex> function) {
+        lock.readLock().lock();
+        try {
+            return function.applyAsInt(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,283 @@
+package org.zerock.club.security.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.repository.PointLedgerRepository;
+import org.zerock.club.security.dto.PointEventDTO;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 포인트 적립을 모아서 나중에 저장하기 (write-behind, MembershipService.addPointDeferred())
+ *
+ * 적립은 멤버십마다 LongAdder에 더하기만 하므로 같은 멤버십에 동시에 적립해도 서로 기다리지 않고,
+ * flush()가 flush-interval-ms마다 멤버십별 합계를 포인트 원장에 적립(ACCRUAL) 한 행씩(JDBC 배치 insert) 추가합니다.
+ * membership 테이블은 잠그지 않습니다. 잔액에는 원장에 추가된 다음부터 반영됩니다. (그때 회원의 MembershipCache를 제거하고 PointLeaderboard를 갱신)
+ * 서버가 비정상 종료되면 마지막 flush 이후의 적립(최대 flush-interval-ms)은 사라집니다. 정상 종료할 때는 @PreDestroy에서 저장합니다.
+ *
+ * 합계는 초기화하지 않고 '지금까지 더한 값 - 저장한 값'만 저장하므로, flush 중에 들어온 적립은 다음 flush에서 저장됩니다.
+ * 저장에 실패하면 저장한 값이 그대로이므로 다음 flush에서 다시 시도합니다.
+ * 한동안 적립이 없는 멤버십은 닫고(close) 맵에서 뺍니다. 닫을 때 적립 중인 스레드가 있으면 닫지 않고,
+ * 닫힌 항목에는 더 이상 더할 수 없으므로 add()는 맵에서 새 항목을 만들어 다시 더합니다.
+ * 닫기 직전에 더해진 값은 닫은 다음의 합계로 저장하고, 저장할 때까지 retired에서 다시 시도합니다.
+ *
+ * 저장할 수 없는 행(너무 긴 아이디 등)은 버리고 dropped로 셉니다.
+ * 없는 멤버십의 적립도 원장에는 추가되지만 잔액에는 반영되지 않습니다.
+ */
+@Log4j2
+@Component
+public class PointAccumulator implements MeterBinder {
+
+    // 이 횟수만큼 연속으로 적립이 없으면 맵에서 뺍니다.
+    private static final int IDLE_FLUSHES = 2;
+
+    private final PointLedgerRepository pointLedgerRepository;
+
+    private final MembershipCache membershipCache;
+
+    private final PointLeaderboard pointLeaderboard;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final ConcurrentMap<MembershipPK, Pending> pending = new ConcurrentHashMap<>();
+
+    // 닫고 맵에서 뺐지만 아직 다 저장하지 못한 항목 (flush()에서만 사용)
+    private List<Pending> retired = new ArrayList<>();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public PointAccumulator(PointLedgerRepository pointLedgerRepository, MembershipCache membershipCache,
+                            PointLeaderboard pointLeaderboard, PlatformTransactionManager transactionManager,
+                            @Value("${club.membership.points.batch-size:500}") int batchSize) {
+        this.pointLedgerRepository = pointLedgerRepository;
+        this.membershipCache = membershipCache;
+        this.pointLeaderboard = pointLeaderboard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public void add(String userId, String membershipId, int point) {
+
+        if (point == 0) {
+            return;
+        }
+
+        MembershipPK key = new MembershipPK(userId, membershipId);
+
+        while (true) {
+            Pending entry = pending.get(key);
+
+            if (entry == null) {
+                entry = pending.computeIfAbsent(key, Pending::new);
+            }
+
+            afterLookup(key);
+
+            if (entry.add(point)) {
+                return;
+            }
+
+            // flush()가 닫은 항목이면 맵에서 빼고 새 항목에 다시 더합니다.
+            pending.remove(key, entry);
+        }
+    }
+
+    // 항목을 찾은 다음, 더하기 전 (테스트에서 그 사이에 flush()가 실행되는 경우를 만들 때 사용)
+    protected void afterLookup(MembershipPK key) {
+    }
+
+    // 아직 저장하지 않은 적립이 있는 멤버십 수
+    public int size() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        log.info("point accumulator closed: {} accruals flushed, {} dropped", flushed.sum(), dropped.sum());
+    }
+
+    @Scheduled(fixedDelayString = "${club.membership.points.flush-interval-ms:1000}",
+            initialDelayString = "${club.membership.points.flush-interval-ms:1000}")
+    public synchronized void flush() {
+
+        List<Pending> entries = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+
+        List<Pending> nextRetired = new ArrayList<>();
+
+        for (Pending entry : retired) {
+            long total = entry.sum.sum();
+
+            if (total != entry.saved) {
+                entries.add(entry);
+                totals.add(total);
+                nextRetired.add(entry);
+            }
+        }
+
+        for (Pending entry : pending.values()) {
+            long total = entry.sum.sum();
+
+            if (total != entry.saved) {
+                entry.idle = 0;
+                entries.add(entry);
+                totals.add(total);
+            } else if (++entry.idle >= IDLE_FLUSHES && entry.close()) {
+                pending.remove(entry.key, entry);
+
+                // 합계를 읽은 다음 닫기 전에 더해진 값
+                long closed = entry.sum.sum();
+
+                if (closed != entry.saved) {
+                    entries.add(entry);
+                    totals.add(closed);
+                    nextRetired.add(entry);
+                }
+            }
+        }
+
+        retired = nextRetired;
+
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, entries.size());
+
+            try {
+                write(entries.subList(from, to), totals.subList(from, to));
+            } catch (DataIntegrityViolationException e) {
+                // 저장할 수 없는 행(포인트 범위 초과 등)이 배치 전체를 계속 실패시키지 않도록 한 건씩 다시 저장합니다.
+                for (int i = from; i < to; i++) {
+                    try {
+                        write(entries.subList(i, i + 1), totals.subList(i, i + 1));
+                    } catch (DataIntegrityViolationException rowException) {
+                        Pending entry = entries.get(i);
+                        log.error("points dropped: {} ({} points)", entry.key, totals.get(i) - entry.saved, rowException);
+                        entry.saved = totals.get(i);
+                        dropped.increment();
+                    } catch (RuntimeException rowException) {
+                        log.error("point flush failed: {} memberships pending", entries.size() - i, rowException);
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 데이터베이스 장애 등. 남은 적립은 다음 flush에서 다시 저장합니다.
+                log.error("point flush failed: {} memberships pending", entries.size() - from, e);
+                return;
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            log.debug("points flushed: {} memberships", entries.size());
+        }
+    }
+
+    private void write(List<Pending> entries, List<Long> totals) {
+
+        List<PointEventDTO> events = new ArrayList<>(entries.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < entries.size(); i++) {
+            Pending entry = entries.get(i);
+
+            PointEventDTO.addChanges(events, entry.key.getUserId(), entry.key.getMembershipId(),
+                    totals.get(i) - entry.saved, now);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> pointLedgerRepository.appendAll(events));
+
+        for (int i = 0; i < entries.size(); i++) {
+            Pending entry = entries.get(i);
+
+            pointLeaderboard.add(entry.key.getMembershipId(), entry.key.getUserId(), totals.get(i) - entry.saved);
+
+            entry.saved = totals.get(i);
+            membershipCache.invalidate(entry.key.getUserId());
+        }
+
+        flushed.add(entries.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("membership.points.pending", this, PointAccumulator::size)
+                .description("number of memberships with points not yet written")
+                .register(registry);
+
+        FunctionCounter.builder("membership.points.flushed", flushed, LongAdder::sum)
+                .description("number of accumulated point accruals written to the ledger")
+                .register(registry);
+
+        FunctionCounter.builder("membership.points.dropped", dropped, LongAdder::sum)
+                .description("number of accumulated point accruals that could not be written")
+                .register(registry);
+    }
+
+    private static final class Pending {
+
+        static final int CLOSED = -1;
+
+        final MembershipPK key;
+
+        // 지금까지 더한 값 (초기화하지 않습니다)
+        final LongAdder sum = new LongAdder();
+
+        // 더하고 있는 스레드 수, 닫히면 CLOSED
+        final AtomicInteger adders = new AtomicInteger();
+
+        // 저장한 값 (flush()에서만 사용)
+        long saved;
+
+        int idle;
+
+        Pending(MembershipPK key) {
+            this.key = key;
+        }
+
+        // 닫힌 항목이면 더하지 않고 false
+        boolean add(int point) {
+            int count;
+
+            do {
+                count = adders.get();
+
+                if (count == CLOSED) {
+                    return false;
+                }
+            } while (!adders.compareAndSet(count, count + 1));
+
+            try {
+                sum.add(point);
+                return true;
+            } finally {
+                adders.decrementAndGet();
+            }
+        }
+
+        // 더하고 있는 스레드가 없을 때만 닫습니다. 닫은 다음에는 sum이 바뀌지 않습니다.
+        boolean close() {
+            return adders.compareAndSet(0, CLOSED);
+        }
+    }
+
+}
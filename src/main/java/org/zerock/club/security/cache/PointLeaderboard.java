@@ -0,0 +1,371 @@
+package org.zerock.club.security.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.repository.MembershipRepository;
+import org.zerock.club.security.dto.LeaderboardEntryDTO;
+import org.zerock.club.security.dto.LeaderboardPageDTO;
+import org.zerock.club.security.dto.MembershipDTO;
+import org.zerock.club.util.rank.RankTree;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 멤버십(membershipId)별 포인트 순위표 (/membership/leaderboard/{membershipId})
+ *
+ * 멤버십마다 회원의 잔액을 RankTree에 보관하므로 상위 N명, 회원의 순위, 순위 구간을 O(log n)에 조회합니다.
+ * MembershipServiceImpl과 PointAccumulator가 멤버십을 등록/삭제하거나 원장에 포인트를 추가할 때마다 커밋 이후에 갱신합니다.
+ * 포인트는 변화량으로 반영하고, 순위표에 없는 회원(없는 멤버십)의 변화량은 무시합니다.
+ *
+ * 시작할 때 한번 백그라운드 스레드에서 전체 멤버십의 잔액을 읽어 새 순위표를 만듭니다.
+ * 그동안 바뀐 멤버십은 변화량을 새 순위표에 다시 적용하지 않고 키만 기록해 두었다가, 스트림을 다 읽고 교체한 다음
+ * 잔액을 다시 읽어서 교체(put)합니다. 스냅샷에 이미 포함된 변화량이 두 번 더해지지 않도록 하기 위해서입니다.
+ * 다시 읽는 동안에 바뀐 멤버십(이전 값으로 덮어썼을 수 있는 멤버십)은 다음 라운드에서 다시 읽고, 바뀐 멤버십이 없는 라운드에서 끝냅니다.
+ * 만들지 못하면 retry-initial-ms부터 두 배씩, 최대 retry-max-ms 간격으로 다시 시도하고, 그 전에는 조회가 IllegalStateException을 던집니다.
+ *
+ * 순위표는 서버마다 따로 가지고 있으므로 다른 서버의 변경은 재시작할 때 반영됩니다.
+ */
+@Log4j2
+@Component
+public class PointLeaderboard implements MeterBinder {
+
+    // 잔액을 다시 읽을 때 한번에 조회하는 회원 수
+    private static final int REREAD_CHUNK_SIZE = 500;
+
+    private final MembershipRepository membershipRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final long retryInitialMillis;
+
+    private final long retryMaxMillis;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 멤버십 아이디 -> 순위표 (lock으로 보호)
+    private Map<String, RankTree> boards = new HashMap<>();
+
+    // 다시 만드는 동안 바뀐 멤버십 (lock으로 보호, 다시 만드는 중이 아니면 null)
+    private Set<MembershipPK> touched;
+
+    private volatile boolean ready;
+
+    public PointLeaderboard(MembershipRepository membershipRepository, PlatformTransactionManager transactionManager,
+                            @Value("${club.membership.leaderboard.rebuild.retry-initial-ms:1000}") long retryInitialMillis,
+                            @Value("${club.membership.leaderboard.rebuild.retry-max-ms:60000}") long retryMaxMillis) {
+        this.membershipRepository = membershipRepository;
+        this.transactionManager = transactionManager;
+        this.retryInitialMillis = retryInitialMillis;
+        this.retryMaxMillis = retryMaxMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuildWithRetry, "leaderboard-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 성공할 때까지 간격을 두 배씩 늘리면서 다시 만듭니다.
+    private void rebuildWithRetry() {
+
+        long delay = retryInitialMillis;
+
+        while (!rebuild()) {
+            log.warn("leaderboard rebuild will be retried in {}ms", delay);
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            delay = Math.min(delay * 2, retryMaxMillis);
+        }
+    }
+
+    /**
+     * 전체 멤버십을 스트림으로 읽어서 새 순위표를 만들어 현재 순위표와 교체하고, 그동안 바뀐 멤버십의 잔액을 다시 읽어 반영합니다.
+     * 실패하면 false를 반환합니다.
+     */
+    public synchronized boolean rebuild() {
+
+        long start = System.currentTimeMillis();
+
+        write(() -> touched = new HashSet<>());
+
+        Map<String, RankTree> rebuilt = new HashMap<>();
+
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<MembershipDTO> stream = membershipRepository.streamAllMembershipDTO()) {
+                    stream.forEach(membership -> board(rebuilt, membership.getMembershipId())
+                            .put(membership.getUserId(), membership.getPoint()));
+                }
+            });
+
+            // 이후의 변경은 새 순위표에 바로 적용하고, 그 전에 바뀐 멤버십은 기록된 키로 다시 읽습니다.
+            write(() -> boards = rebuilt);
+
+            // 바뀐 멤버십이 없을 때까지 잔액을 다시 읽습니다.
+            while (true) {
+                Set<MembershipPK> keys = takeTouched();
+
+                if (keys == null) {
+                    break;
+                }
+
+                Map<MembershipPK, Long> balances = readBalances(transactionTemplate, keys);
+                write(() -> replace(boards, keys, balances));
+            }
+        } catch (RuntimeException e) {
+            log.error("leaderboard rebuild failed", e);
+            write(() -> touched = null);
+            return false;
+        }
+
+        ready = true;
+
+        // 교체한 다음에는 다른 스레드가 순위표를 바꾸므로 락을 잡고 셉니다.
+        log.info("leaderboard rebuilt: {} programs, {} memberships in {}ms",
+                read(() -> boards.size()), size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 순위 offset(0부터)부터 size명
+     */
+    public LeaderboardPageDTO page(String membershipId, int offset, int size) {
+
+        checkReady();
+
+        return read(() -> {
+            RankTree board = boards.get(membershipId);
+
+            if (board == null) {
+                return LeaderboardPageDTO.builder().entries(List.of()).total(0).build();
+            }
+            return toPage(board, board.range(offset, size));
+        });
+    }
+
+    /**
+     * 회원이 가운데에 오는 size명, 순위표에 없는 회원이면 null
+     */
+    public LeaderboardPageDTO around(String membershipId, String userId, int size) {
+
+        checkReady();
+
+        return read(() -> {
+            RankTree board = boards.get(membershipId);
+            int rank = board == null ? -1 : board.rank(userId);
+
+            if (rank < 0) {
+                return null;
+            }
+
+            int offset = Math.max(0, Math.min(rank - size / 2, board.size() - size));
+
+            return toPage(board, board.range(offset, size));
+        });
+    }
+
+    // 트랜잭션 안에서 호출되면 커밋 이후에 반영합니다. 이미 있으면 교체합니다.
+    public void put(String membershipId, String userId, long point) {
+        afterCommit(membershipId, userId, boards -> board(boards, membershipId).put(userId, point));
+    }
+
+    public void add(String membershipId, String userId, long delta) {
+
+        if (delta == 0) {
+            return;
+        }
+
+        afterCommit(membershipId, userId, boards -> {
+            RankTree board = boards.get(membershipId);
+
+            if (board != null) {
+                board.add(userId, delta);
+            }
+        });
+    }
+
+    public void remove(String membershipId, String userId) {
+
+        afterCommit(membershipId, userId, boards -> {
+            RankTree board = boards.get(membershipId);
+
+            if (board != null && board.remove(userId) && board.size() == 0) {
+                boards.remove(membershipId);
+            }
+        });
+    }
+
+    public int size() {
+        return read(() -> boards.values().stream().mapToInt(RankTree::size).sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("membership.leaderboard.size", this, PointLeaderboard::size)
+                .description("number of memberships in the point leaderboards")
+                .register(registry);
+
+        Gauge.builder("membership.leaderboard.programs", this, l -> l.read(() -> l.boards.size()))
+                .description("number of membership programs with a point leaderboard")
+                .register(registry);
+    }
+
+    private void checkReady() {
+
+        if (!ready) {
+            throw new IllegalStateException("leaderboard is not ready");
+        }
+    }
+
+    private static RankTree board(Map<String, RankTree> boards, String membershipId) {
+        return boards.computeIfAbsent(membershipId, k -> new RankTree());
+    }
+
+    private static LeaderboardPageDTO toPage(RankTree board, List<RankTree.Entry> entries) {
+
+        return LeaderboardPageDTO.builder()
+                .entries(entries.stream()
+                        .map(entry -> LeaderboardEntryDTO.builder()
+                                .rank(entry.getRank() + 1)
+                                .userId(entry.getMember())
+                                .point(entry.getScore())
+                                .build())
+                        .collect(Collectors.toList()))
+                .total(board.size())
+                .build();
+    }
+
+    // 다시 만드는 동안 바뀐 멤버십을 가져오고 새로 기록하기 시작합니다. 바뀐 멤버십이 없으면 기록을 끝내고 null을 반환합니다.
+    private Set<MembershipPK> takeTouched() {
+
+        lock.writeLock().lock();
+        try {
+            Set<MembershipPK> keys = touched;
+            touched = keys.isEmpty() ? null : new HashSet<>();
+            return touched == null ? null : keys;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 멤버십의 현재 잔액 (삭제된 멤버십은 결과에 없습니다)
+    private Map<MembershipPK, Long> readBalances(TransactionTemplate transactionTemplate, Set<MembershipPK> keys) {
+
+        List<String> userIds = keys.stream().map(MembershipPK::getUserId).distinct().collect(Collectors.toList());
+
+        Map<MembershipPK, Long> balances = new HashMap<>();
+
+        for (int from = 0; from < userIds.size(); from += REREAD_CHUNK_SIZE) {
+            List<String> chunk = userIds.subList(from, Math.min(from + REREAD_CHUNK_SIZE, userIds.size()));
+
+            List<MembershipDTO> memberships = transactionTemplate.execute(status -> membershipRepository.getMembershipDTOListIn(chunk));
+
+            for (MembershipDTO membership : memberships) {
+                MembershipPK key = new MembershipPK(membership.getUserId(), membership.getMembershipId());
+
+                if (keys.contains(key)) {
+                    balances.put(key, membership.getPoint());
+                }
+            }
+        }
+        return balances;
+    }
+
+    // 다시 읽은 잔액으로 교체합니다. 몇 번을 적용해도 결과가 같습니다.
+    private static void replace(Map<String, RankTree> boards, Set<MembershipPK> keys, Map<MembershipPK, Long> balances) {
+
+        for (MembershipPK key : keys) {
+            Long balance = balances.get(key);
+
+            if (balance != null) {
+                board(boards, key.getMembershipId()).put(key.getUserId(), balance);
+                continue;
+            }
+
+            RankTree board = boards.get(key.getMembershipId());
+
+            if (board != null && board.remove(key.getUserId()) && board.size() == 0) {
+                boards.remove(key.getMembershipId());
+            }
+        }
+    }
+
+    private void afterCommit(String membershipId, String userId, Consumer<Map<String, RankTree>> change) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(membershipId, userId, change);
+                }
+            });
+        } else {
+            apply(membershipId, userId, change);
+        }
+    }
+
+    // 현재 순위표에 적용하고, 다시 만드는 중이면 새 순위표에서 잔액을 다시 읽도록 기록합니다.
+    private void apply(String membershipId, String userId, Consumer<Map<String, RankTree>> change) {
+        write(() -> {
+            change.accept(boards);
+
+            if (touched != null) {
+                touched.add(new MembershipPK(userId, membershipId));
+            }
+        });
+    }
+
+    private void write(Runnable runnable) {
+        lock.writeLock().lock();
+        try {
+            runnable.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
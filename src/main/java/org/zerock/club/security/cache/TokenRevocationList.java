@@ -0,0 +1,162 @@
+package org.zerock.club.security.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.zerock.club.entity.RevokedToken;
+import org.zerock.club.repository.RevokedTokenRepository;
+import org.zerock.club.util.BloomFilter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 폐기된 JWT의 jti 목록
+ *
+ * ApiCheckFilter는 모든 API 호출마다 isRevoked()를 확인합니다. 폐기되지 않은 토큰은 블룸 필터 한번으로 끝나고,
+ * 블룸 필터가 '있을 수도 있다'고 답한 경우에만 정확한 집합(jti -> 만료 시각)을 확인합니다.
+ * 데이터베이스는 폐기할 때와 시작할 때, 그리고 주기적인 동기화에서만 사용합니다.
+ *
+ * 폐기 정보는 토큰이 만료되면 필요 없으므로 purge()에서 메모리와 revoked_token 테이블 모두에서 지우고
+ * 블룸 필터도 남은 jti로 다시 만듭니다.
+ */
+@Log4j2
+@Component
+public class TokenRevocationList implements MeterBinder {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // revoke()와 rebuild()가 같은 블룸 필터를 보도록 두 작업은 lock으로 묶습니다. isRevoked()는 lock을 사용하지 않습니다.
+    private final Object lock = new Object();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile LocalDateTime lastSync;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${club.jwt.revocation.expected-insertions:100000}") long expectedInsertions,
+                               @Value("${club.jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    // jti가 없는 예전 토큰은 폐기할 수 없으므로 항상 false
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * 토큰을 폐기합니다. 만료 시각(epoch milliseconds)이 지나면 목록에서 제거됩니다.
+     */
+    public void revoke(String jti, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(toLocalDateTime(expiresAt))
+                .build());
+
+        add(jti, expiresAt);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // 시작할 때 아직 만료되지 않은 폐기 목록을 읽어들입니다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<RevokedToken> list = revokedTokenRepository.findByExpiresAtAfter(now);
+        list.forEach(token -> revoked.put(token.getJti(), toEpochMillis(token.getExpiresAt())));
+        lastSync = now;
+
+        rebuild();
+
+        log.info("revoked tokens loaded: {}", list.size());
+    }
+
+    /**
+     * 만료된 jti를 정리하고 블룸 필터를 다시 만듭니다.
+     * 다른 서버에서 폐기한 토큰도 이때 읽어옵니다.
+     */
+    @Scheduled(fixedDelayString = "${club.jwt.revocation.purge-interval-ms:60000}",
+            initialDelayString = "${club.jwt.revocation.purge-interval-ms:60000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (lastSync != null) {
+            revokedTokenRepository.getRevokedSince(lastSync.minusSeconds(1), now)
+                    .forEach(token -> add(token.getJti(), toEpochMillis(token.getExpiresAt())));
+        }
+        lastSync = now;
+
+        long current = System.currentTimeMillis();
+        boolean removed = revoked.values().removeIf(expiresAt -> expiresAt <= current);
+
+        int deleted = revokedTokenRepository.deleteExpired(now);
+
+        if (removed || deleted > 0) {
+            rebuild();
+        }
+
+        log.debug("revoked tokens: {}, deleted: {}", revoked.size(), deleted);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jwt.revoked.size", this, TokenRevocationList::size)
+                .description("number of revoked tokens not yet expired")
+                .register(registry);
+    }
+
+    private void add(String jti, long expiresAt) {
+        synchronized (lock) {
+            revoked.put(jti, expiresAt);
+            bloomFilter.put(jti);
+        }
+    }
+
+    private void rebuild() {
+        synchronized (lock) {
+            BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2L), falsePositiveRate);
+            revoked.keySet().forEach(filter::put);
+            bloomFilter = filter;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.zerock.club.security.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 서명 검증까지 끝난 토큰의 결과값
+ * 토큰 원문은 보관하지 않고 검증 결과(subject), 토큰 ID(jti), 만료 시각(exp), Claims로 만든 인증 정보만 가지고 있습니다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class VerifiedToken {
+
+    private final String subject;
+
+    // jti, 예전에 발급된 토큰은 null
+    private final String tokenId;
+
+    // epoch milliseconds
+    private final long expiresAt;
+
+    private final Authentication authentication;
+
+}
@@ -0,0 +1,106 @@
+package org.zerock.club.security.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이미 검증이 끝난 JWT를 보관하는 캐시
+ *
+ * 모바일 클라이언트는 한번 발급받은 토큰을 오랫동안 재사용하기 때문에 ApiCheckFilter에서 매번 파싱, base64 디코딩,
+ * HMAC 검증을 반복하게 됩니다. 한번 검증된 토큰은 토큰의 만료 시각(exp)까지 이 캐시에서 바로 꺼내서 사용합니다.
+ *
+ * 키는 토큰 원문이 아니라 SHA-256 다이제스트를 사용하므로 메모리에 토큰 원문이 남지 않습니다.
+ * 엔트리 수는 maximumSize로 제한되고, 각 엔트리는 토큰의 exp 시각에 만료됩니다.
+ * 히트/미스/제거 횟수는 MeterBinder를 통해서 'cache.*{cache=verifiedToken}' 메트릭으로 노출됩니다.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${club.jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return untilExpiry(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return untilExpiry(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    // 캐시에 없으면 null
+    public VerifiedToken get(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (verifiedToken.getExpiresAt() <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(digest(token), verifiedToken);
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "verifiedToken");
+    }
+
+    private static long untilExpiry(VerifiedToken value) {
+        long remainMillis = value.getExpiresAt() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainMillis));
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+}
@@ -40,6 +40,8 @@ public class ClubAuthMemberDTO extends User implements OAuth2User {
 
     private boolean fromSocial;
 
+    private boolean defaultPassword;
+
     private Map<String, Object> attr;
 
     public ClubAuthMemberDTO(String username, String password, boolean fromSocial, Collection<? extends GrantedAuthority> authorities) {
@@ -0,0 +1,22 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 멤버십 순위표의 한 행
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDTO {
+
+    // 1부터 시작 (점수가 같으면 아이디 순서)
+    private int rank;
+
+    private String userId;
+
+    private long point;
+
+}
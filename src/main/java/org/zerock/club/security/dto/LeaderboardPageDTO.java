@@ -0,0 +1,21 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardPageDTO {
+
+    private List<LeaderboardEntryDTO> entries;
+
+    // 순위표 전체의 회원 수
+    private int total;
+
+}
@@ -21,7 +21,8 @@ public class MembershipDTO {
 
     private boolean membershipStatus;
 
-    private int point;
+    // 잔액 (스냅샷 + 원장이므로 int 범위를 넘을 수 있습니다)
+    private long point;
 
     private LocalDateTime startDate;
 }
@@ -0,0 +1,54 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 노트 목록의 다음 페이지 위치
+ *
+ * 목록은 (modDate desc, num desc) 순서이므로 마지막으로 받은 노트의 modDate와 num만 있으면
+ * OFFSET 없이 다음 페이지를 조회할 수 있습니다.
+ * 클라이언트에는 내용을 알 수 없도록 base64url로 인코딩한 문자열(X-Next-Cursor)로 전달합니다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class NoteCursor {
+
+    private final LocalDateTime modDate;
+
+    private final Long num;
+
+    public static NoteCursor of(NoteDTO noteDTO) {
+        return new NoteCursor(noteDTO.getModDate(), noteDTO.getNum());
+    }
+
+    public String encode() {
+        String value = modDate + "|" + num;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 잘못된 커서는 IllegalArgumentException
+    public static NoteCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = value.indexOf('|');
+
+            if (bar < 0) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor);
+            }
+
+            return new NoteCursor(LocalDateTime.parse(value.substring(0, bar)), Long.parseLong(value.substring(bar + 1)));
+
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.zerock.club.util.ContentCodec;
 
 import java.time.LocalDateTime;
 
@@ -23,4 +24,22 @@ public class NoteDTO {
 
      private LocalDateTime regDate, modDate;
 
+     // 수정(PUT)할 때 조회한 버전을 그대로 보내야 합니다.
+     private Long version;
+
+     // 목록 조회에서는 content 대신 앞부분만 채웁니다.
+     private String preview;
+
+     // 한 건 조회용 프로젝션 (NoteRepository.SELECT_NOTE_DTO)
+     public NoteDTO(Long num, String title, byte[] contentData, String writerEmail,
+                    LocalDateTime regDate, LocalDateTime modDate, Long version) {
+          this(num, title, ContentCodec.decode(contentData), writerEmail, regDate, modDate, version, null);
+     }
+
+     // 목록 조회용 프로젝션 (NoteRepository.SELECT_NOTE_PREVIEW)
+     public NoteDTO(Long num, String title, String writerEmail,
+                    LocalDateTime regDate, LocalDateTime modDate, Long version, String preview) {
+          this(num, title, null, writerEmail, regDate, modDate, version, preview);
+     }
+
 }
@@ -0,0 +1,23 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 작성자의 노트 목록이 바뀌었는지 확인하기 위한 값
+ * 노트가 추가/수정되면 lastModDate가, 삭제되면 count가 바뀝니다.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteListVersionDTO {
+
+    private long count;
+
+    // 노트가 없으면 null
+    private LocalDateTime lastModDate;
+
+}
@@ -0,0 +1,21 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotePageDTO {
+
+    private List<NoteDTO> notes;
+
+    // 마지막 페이지이면 null
+    private String nextCursor;
+
+}
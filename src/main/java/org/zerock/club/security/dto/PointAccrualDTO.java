@@ -0,0 +1,22 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// POST /membership/points/batch의 한 행 (결제 한 건)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PointAccrualDTO {
+
+    private String userId;
+
+    private String membershipId;
+
+    // 결제 금액 (1%를 적립)
+    private int money;
+
+}
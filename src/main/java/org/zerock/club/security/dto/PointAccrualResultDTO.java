@@ -0,0 +1,35 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// POST /membership/points/batch의 행마다의 결과 (요청과 같은 순서)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PointAccrualResultDTO {
+
+    public enum Status {
+        // 원장에 적립됨
+        ACCRUED,
+        // 멤버십이 없음
+        NOT_FOUND,
+        // 아이디가 없거나 금액이 음수
+        INVALID,
+        // 저장하지 못함 (다시 보내도 됩니다)
+        FAILED
+    }
+
+    private String userId;
+
+    private String membershipId;
+
+    // 이 행으로 적립한 포인트
+    private int point;
+
+    private Status status;
+
+}
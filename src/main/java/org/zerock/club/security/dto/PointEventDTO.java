@@ -0,0 +1,54 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.zerock.club.entity.PointEventType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PointEventDTO {
+
+    // 원장 번호 (저장할 때는 비워둡니다)
+    private Long id;
+
+    private String userId;
+
+    private String membershipId;
+
+    private PointEventType type;
+
+    // 잔액의 변화량 (적립은 양수, 사용/소멸은 음수)
+    private int point;
+
+    private LocalDateTime regDate;
+
+    /**
+     * 잔액을 point만큼 바꾸는 이벤트를 events에 추가합니다. (양수는 적립, 음수는 사용)
+     * 원장의 point는 int이므로 범위를 넘으면 여러 행으로 나눕니다.
+     */
+    public static void addChanges(List<PointEventDTO> events, String userId, String membershipId, long point,
+                                  LocalDateTime regDate) {
+
+        while (point != 0) {
+            int part = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, point));
+
+            events.add(PointEventDTO.builder()
+                    .userId(userId)
+                    .membershipId(membershipId)
+                    .type(part > 0 ? PointEventType.ACCRUAL : PointEventType.REDEMPTION)
+                    .point(part)
+                    .regDate(regDate)
+                    .build());
+
+            point -= part;
+        }
+    }
+
+}
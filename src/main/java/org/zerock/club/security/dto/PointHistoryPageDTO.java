@@ -0,0 +1,22 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PointHistoryPageDTO {
+
+    // 최근 이벤트부터
+    private List<PointEventDTO> events;
+
+    // 마지막 페이지이면 null
+    private String nextCursor;
+
+}
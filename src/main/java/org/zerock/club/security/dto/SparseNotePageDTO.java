@@ -0,0 +1,23 @@
+package org.zerock.club.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// fields=로 고른 속성만 들어있는 노트 목록 한 페이지 (NotePageDTO 참고)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SparseNotePageDTO {
+
+    private List<Map<String, Object>> notes;
+
+    // 마지막 페이지이면 null
+    private String nextCursor;
+
+}
@@ -0,0 +1,20 @@
+package org.zerock.club.security.encoder;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * BCrypt 작업 큐가 가득 찼거나 대기 시간이 초과된 경우
+ * 요청이 몰릴 때 대량으로 발생하는 예외이므로 스택 트레이스는 만들지 않습니다.
+ */
+public class PasswordEncoderBusyException extends AuthenticationServiceException {
+
+    public PasswordEncoderBusyException(String msg) {
+        super(msg);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
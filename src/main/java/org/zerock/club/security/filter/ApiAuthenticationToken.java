@@ -0,0 +1,34 @@
+package org.zerock.club.security.filter;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Transient;
+import org.zerock.club.security.dto.ClubAuthMemberDTO;
+
+/**
+ * JWT의 Claims만으로 만들어진 인증 정보
+ *
+ * @Transient가 지정된 Authentication은 HttpSessionSecurityContextRepository가 세션에 저장하지 않습니다.
+ * 따라서 API 호출은 매번 토큰으로만 인증되고 HttpSession을 만들지 않습니다.
+ */
+@Transient
+public class ApiAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final ClubAuthMemberDTO principal;
+
+    public ApiAuthenticationToken(ClubAuthMemberDTO principal) {
+        super(principal.getAuthorities());
+        this.principal = principal;
+        super.setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return "";
+    }
+
+    @Override
+    public ClubAuthMemberDTO getPrincipal() {
+        return principal;
+    }
+
+}
@@ -1,10 +1,17 @@
 package org.zerock.club.security.filter;
 
+import io.jsonwebtoken.Claims;
 import lombok.extern.log4j.Log4j2;
 import net.minidev.json.JSONObject;
-import org.springframework.util.AntPathMatcher;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.zerock.club.security.cache.TokenRevocationList;
+import org.zerock.club.security.cache.VerifiedToken;
+import org.zerock.club.security.dto.ClubAuthMemberDTO;
+import org.zerock.club.security.cache.VerifiedTokenCache;
 import org.zerock.club.util.JWTUtil;
 
 import javax.servlet.FilterChain;
@@ -13,6 +20,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * OncePerRequestFilter는 추상 클래스로 제공되는 필터로 가장 일반적이며, 매번 동작하는 기본적인 필터입니다.
@@ -22,14 +32,26 @@ import java.io.PrintWriter;
 @Log4j2
 public class  ApiCheckFilter extends OncePerRequestFilter {
 
-    private AntPathMatcher antPathMatcher;
-    private String pattern;
+    private CompiledPathMatcher pathMatcher;
     private JWTUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private TokenRevocationList tokenRevocationList;
 
-    public ApiCheckFilter(String pattern, JWTUtil jwtUtil) {
-        this.antPathMatcher = new AntPathMatcher();
-        this.pattern = pattern;
+    public ApiCheckFilter(String[] patterns, JWTUtil jwtUtil, VerifiedTokenCache verifiedTokenCache,
+                          TokenRevocationList tokenRevocationList) {
+        this.pathMatcher = new CompiledPathMatcher(patterns);
         this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    /**
+     * 패턴에 맞지 않는 요청(정적 리소스, 화면 등)은 doFilterInternal()까지 가지 않습니다.
+     * 경로 검사는 생성할 때 만들어 둔 CompiledPathMatcher로 한번만 합니다.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        return !pathMatcher.matches(request);
     }
 
     /**
@@ -49,44 +71,33 @@ public class  ApiCheckFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
-        log.info("REQUESTURI: " + request.getRequestURI());
-
-        log.info(antPathMatcher.match(pattern, request.getRequestURI()));
-
-        if(antPathMatcher.match(pattern, request.getRequestURI())){
-
-            log.info("ApiCheckFilter....................................");
-            log.info("ApiCheckFilter....................................");
-            log.info("ApiCheckFilter....................................");
-
-            boolean checkHeader = checkAuthHeader(request);
-
-            if(checkHeader){
-                filterChain.doFilter(request, response);
-                return;
-            } else{
-                //헤더 검증 실패 처리
-                // 1. AuthenticationManager
-                // 2.JSON 포맷 에러 메시지 전송 
-                // - 2번에 해당되는 내용
-                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                // json 리턴 및 한글깨짐 수정
-                response.setContentType("application/json;charset=utf-8");
-                JSONObject json = new JSONObject();
-                String message = "FAIL CHECK API TOKEN";
-                json.put("code","403");
-                json.put("message",message);
-
-                PrintWriter out =response.getWriter();
-                out.print(json);
-                 return;
-            }
-        }
+        log.debug("REQUESTURI: {}", request.getRequestURI());
 
+        Authentication authentication = checkAuthHeader(request);
 
+        if(authentication != null){
+            // 토큰의 Claims로 만든 인증 정보를 SecurityContext에 담아서 이후의 인가 처리에서 사용할 수 있도록 합니다.
+            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        //filterChain.doFilter()는 다음 필터의 단계로 넘어가는 역할을 위해서 필요합니다.
-        filterChain.doFilter(request, response);
+            //filterChain.doFilter()는 다음 필터의 단계로 넘어가는 역할을 위해서 필요합니다.
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        //헤더 검증 실패 처리
+        // 1. AuthenticationManager
+        // 2.JSON 포맷 에러 메시지 전송
+        // - 2번에 해당되는 내용
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        // json 리턴 및 한글깨짐 수정
+        response.setContentType("application/json;charset=utf-8");
+        JSONObject json = new JSONObject();
+        String message = "FAIL CHECK API TOKEN";
+        json.put("code","403");
+        json.put("message",message);
+
+        PrintWriter out =response.getWriter();
+        out.print(json);
     }
 
     /**
@@ -99,25 +110,76 @@ public class  ApiCheckFilter extends OncePerRequestFilter {
      * 사용자가 정상적인 요청인지를 알아내는 것입니다.
      *
      */
-    private boolean checkAuthHeader(HttpServletRequest request){
-
-        boolean checkResult = false;
+    private Authentication checkAuthHeader(HttpServletRequest request){
 
         String authHeader = request.getHeader("Authorization");
 
         if(StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")){
-            log.info("Authorization exist : " + authHeader);
+
+            String token = authHeader.substring(7);
+
+            // 이미 검증된 토큰이면 파싱과 서명 검증을 생략
+            // 폐기 여부는 캐시에 있는 토큰도 매번 확인합니다. (대부분 블룸 필터 한번으로 끝납니다.)
+            VerifiedToken verified = verifiedTokenCache.get(token);
+
+            if(verified != null){
+                return tokenRevocationList.isRevoked(verified.getTokenId()) ? null : verified.getAuthentication();
+            }
 
             try {
-                String email = jwtUtil.validateAndExtract(authHeader.substring(7));
-                log.info("validate result: " + email);
-                checkResult = email.length() > 0;
+                Claims claims = jwtUtil.validateAndGetClaims(token);
+                String email = claims == null ? null : claims.getSubject();
+                log.debug("validate result: {}", email);
+
+                if(email != null && email.length() > 0){
+
+                    if(tokenRevocationList.isRevoked(claims.getId())){
+                        return null;
+                    }
+
+                    Authentication authentication = toAuthentication(claims);
+
+                    if(claims.getExpiration() != null){
+                        verifiedTokenCache.put(token, new VerifiedToken(email, claims.getId(),
+                                claims.getExpiration().getTime(), authentication));
+                    }
+                    return authentication;
+                }
             } catch ( Exception e ){
-                e.printStackTrace();
+                log.debug("token check failed: {}", e.getMessage());
             }
         }
 
-        return checkResult;
+        return null;
+    }
+
+    /**
+     * Claims에 담긴 이메일, 이름, 권한으로 ClubAuthMemberDTO를 만듭니다.
+     * 회원 정보를 다시 조회하지 않기 때문에 API 호출마다 데이터베이스를 사용하지 않습니다.
+     * 권한 정보가 없는 예전 토큰은 권한이 없는 사용자로 처리됩니다.
+     */
+    private Authentication toAuthentication(Claims claims){
+
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+
+        Object roles = claims.get(JWTUtil.CLAIM_ROLES);
+
+        if(roles instanceof Collection){
+            for(Object role : (Collection<?>) roles){
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+        }
+
+        ClubAuthMemberDTO clubAuthMember = new ClubAuthMemberDTO(
+                claims.getSubject(),
+                "",
+                Boolean.TRUE.equals(claims.get(JWTUtil.CLAIM_SOCIAL, Boolean.class)),
+                authorities
+        );
+
+        clubAuthMember.setName(claims.get(JWTUtil.CLAIM_NAME, String.class));
+
+        return new ApiAuthenticationToken(clubAuthMember);
     }
 
 }
@@ -5,6 +5,7 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
 import org.zerock.club.security.dto.ClubAuthMemberDTO;
 import org.zerock.club.util.JWTUtil;
@@ -14,6 +15,8 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * API를 이용한다면 일반적인 로그인의 URL이 아닌 별도의 URL로 로그인을 처리하는 것이 일반적입니다.
@@ -30,13 +33,16 @@ public class ApiLoginFilter extends AbstractAuthenticationProcessingFilter {
     public ApiLoginFilter(String defaultFilterProcessesUrl, JWTUtil jwtUtil) {
         super(defaultFilterProcessesUrl);
         this.jwtUtil = jwtUtil;
+
+        // 모든 요청에서 로그인 URL인지 확인하므로 미리 분석해 둔 매처를 사용합니다.
+        CompiledPathMatcher pathMatcher = new CompiledPathMatcher(defaultFilterProcessesUrl);
+        setRequiresAuthenticationRequestMatcher(request -> pathMatcher.matches(request));
     }
 
     @Override
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) throws AuthenticationException, IOException, ServletException {
 
-        log.info("----------------ApiLoginFilter--------------------");
-        log.info("attemptAuthentication");
+        log.debug("attemptAuthentication");
 
         String email = request.getParameter("email");
         String pw = request.getParameter("pw");
@@ -54,25 +60,29 @@ public class ApiLoginFilter extends AbstractAuthenticationProcessingFilter {
 
     @Override
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Authentication authResult) throws IOException, ServletException {
-        log.info("---------------ApiLoginFilter-------------------");
-        log.info("successfulAuthentication: " + authResult);
-        log.info(authResult.getPrincipal());
+        log.debug("successfulAuthentication: {}", authResult.getName());
+
+        ClubAuthMemberDTO authMember = (ClubAuthMemberDTO)authResult.getPrincipal();
 
         //email address
-        String email = ((ClubAuthMemberDTO)authResult.getPrincipal()).getUsername();
+        String email = authMember.getUsername();
+
+        // 권한 목록 ex) ROLE_USER
+        List<String> roles = authMember.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
 
         String token = null;
 
         try {
-            token = jwtUtil.generateToken(email);
+            // 이름과 권한을 Claims에 포함시켜서 ApiCheckFilter에서 회원 조회 없이 인증 정보를 만들 수 있도록 합니다.
+            token = jwtUtil.generateToken(email, authMember.getName(), authMember.isFromSocial(), roles);
 
             response.setContentType("text/plain");
             response.getOutputStream().write(token.getBytes());
 
-            log.info(token);
-
         }catch(Exception e) {
-            e.printStackTrace();
+            log.error("token generation failed: {}", email, e);
         }
     }
 }
@@ -14,11 +14,20 @@ import java.io.IOException;
 
 /**
  * @Order : 필터중에 가장 먼저 동작하도록 설정
+ *
+ * CORS 헤더는 외부에서 호출하는 API 경로에만 필요하므로 그 외의 요청은 shouldNotFilter()에서 제외합니다.
  */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class CORSFilter extends OncePerRequestFilter {
 
+    private final CompiledPathMatcher pathMatcher = new CompiledPathMatcher("/api/**", "/notes/**", "/membership/**");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        return !pathMatcher.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         response.setHeader("Access-Control-Allow-Origin", "*");
@@ -0,0 +1,99 @@
+package org.zerock.club.security.filter;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 필터가 처리할 경로인지를 빠르게 판단하기 위한 앤트 패턴 매처
+ *
+ * 생성할 때 패턴을 미리 분석해서
+ * 1) 와일드카드가 없는 패턴은 문자열 비교(Set)로,
+ * 2) 와일드카드가 있는 패턴은 첫 와일드카드 앞까지의 고정된 접두사(ex. '/notes/**' -> '/notes')를 먼저 비교하고
+ *    접두사가 같은 경우에만 AntPathMatcher로 확인합니다.
+ *
+ * 따라서 '/css/..', '/login' 처럼 어떤 패턴과도 관계 없는 요청은 startsWith() 몇 번으로 끝나고,
+ * 결과는 AntPathMatcher.match()와 같습니다.
+ *
+ * 요청으로 검사할 때는 컨텍스트 경로를 뺀 애플리케이션 내의 경로(UrlPathHelper.getPathWithinApplication())를 사용하므로
+ * war로 '/club' 같은 컨텍스트 경로에 배포해도 패턴은 '/api/login' 그대로 맞습니다.
+ */
+public class CompiledPathMatcher {
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    private final Set<String> exactPaths = new HashSet<>();
+
+    private final String[] prefixes;
+
+    private final String[] patterns;
+
+    public CompiledPathMatcher(String... patterns) {
+
+        List<String> prefixList = new ArrayList<>();
+        List<String> patternList = new ArrayList<>();
+
+        for (String pattern : patterns) {
+            if (!antPathMatcher.isPattern(pattern)) {
+                exactPaths.add(pattern);
+                continue;
+            }
+
+            // '/notes/**/*' -> '/notes' ('/notes/'와 '/notes'를 모두 검사할 수 있도록 마지막 '/'는 제외)
+            String prefix = pattern.substring(0, firstWildcard(pattern));
+            int slash = prefix.lastIndexOf('/');
+            prefixList.add(slash >= 0 ? prefix.substring(0, slash) : "");
+            patternList.add(pattern);
+        }
+
+        this.prefixes = prefixList.toArray(new String[0]);
+        this.patterns = patternList.toArray(new String[0]);
+    }
+
+    public boolean matches(HttpServletRequest request) {
+        return matches(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+
+    public boolean matches(String path) {
+
+        if (path == null) {
+            return false;
+        }
+
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+
+        for (int i = 0; i < prefixes.length; i++) {
+            if (path.startsWith(prefixes[i]) && antPathMatcher.match(patterns[i], path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        List<String> all = new ArrayList<>(exactPaths);
+        all.addAll(Arrays.asList(patterns));
+        return "CompiledPathMatcher" + all;
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+
+}
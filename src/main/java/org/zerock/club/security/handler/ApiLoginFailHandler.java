@@ -4,6 +4,7 @@ import lombok.extern.log4j.Log4j2;
 import net.minidev.json.JSONObject;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.zerock.club.security.encoder.PasswordEncoderBusyException;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -24,16 +25,23 @@ public class ApiLoginFailHandler implements AuthenticationFailureHandler {
 
     @Override
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, AuthenticationException exception) throws IOException, ServletException {
-        log.info("login fail handler...............");
-        log.info(exception.getMessage());
+        log.debug("login fail: {}", exception.getMessage());
 
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        // 패스워드 확인 작업이 밀려 있는 경우에는 잠시 후 다시 시도하도록 503을 보냅니다.
+        boolean busy = exception instanceof PasswordEncoderBusyException;
+
+        if(busy){
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+        } else {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        }
 
         // json 리턴
         response.setContentType("application/json; charset=utf-8");
         JSONObject json = new JSONObject();
         String message = exception.getMessage();
-        json.put("code", "401");
+        json.put("code", busy ? "503" : "401");
         json.put("message", message);
 
         PrintWriter out = response.getWriter();
@@ -0,0 +1,37 @@
+package org.zerock.club.security.handler;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.zerock.club.security.encoder.PasswordEncoderBusyException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 폼 로그인 실패 처리
+ * 일반적인 실패는 기존과 같이 '/login?error'로 이동하고, 패스워드 확인 작업이 밀려 있는 경우에는 바로 503을 보냅니다.
+ */
+@Log4j2
+public class ClubLoginFailHandler extends SimpleUrlAuthenticationFailureHandler {
+
+    public ClubLoginFailHandler() {
+        super("/login?error");
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, AuthenticationException exception) throws IOException, ServletException {
+
+        if(exception instanceof PasswordEncoderBusyException){
+            log.warn("login rejected: {}", exception.getMessage());
+
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exception.getMessage());
+            return;
+        }
+
+        super.onAuthenticationFailure(request, response, exception);
+    }
+}
@@ -2,7 +2,6 @@ package org.zerock.club.security.handler;
 
 import lombok.extern.log4j.Log4j2;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.DefaultRedirectStrategy;
 import org.springframework.security.web.RedirectStrategy;
@@ -22,25 +21,20 @@ public class ClubLoginSuccessHandler implements AuthenticationSuccessHandler {
 
     private RedirectStrategy redirectStrategy = new DefaultRedirectStrategy();
 
-    private PasswordEncoder passwordEncoder;
-
-    public ClubLoginSuccessHandler(PasswordEncoder passwordEncoder) {
-        this.passwordEncoder = passwordEncoder;
-    }
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
 
-        log.info("-------------------------------------------");
-        log.info("onAuthenticationSuccess");
+        log.debug("onAuthenticationSuccess");
 
         ClubAuthMemberDTO authMember = (ClubAuthMemberDTO) authentication.getPrincipal();
 
         boolean fromSocial = authMember.isFromSocial();
 
-        log.info("Need Modify Member?" + fromSocial);
+        log.debug("Need Modify Member? {}", fromSocial);
 
-        boolean passwordResult = passwordEncoder.matches("1111", authMember.getPassword());
+        // 기본 패스워드(1111) 사용 여부는 BCrypt로 다시 비교하지 않고 저장된 값으로 확인합니다.
+        boolean passwordResult = authMember.isDefaultPassword();
 
         if( fromSocial && passwordResult ){
             redirectStrategy.sendRedirect(request, response, "/member/modify?from=social");
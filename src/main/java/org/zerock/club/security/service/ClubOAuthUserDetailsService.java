@@ -2,20 +2,26 @@ package org.zerock.club.security.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.zerock.club.entity.ClubMember;
 import org.zerock.club.entity.ClubMemberRole;
 import org.zerock.club.repository.ClubMemberRepository;
+import org.zerock.club.security.encoder.PasswordEncoderBusyException;
+import org.zerock.club.security.cache.MemberCache;
+import org.zerock.club.security.cache.MemberSnapshot;
 import org.zerock.club.security.dto.ClubAuthMemberDTO;
 
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Log4j2
 @Service
@@ -26,6 +32,18 @@ public class ClubOAuthUserDetailsService extends DefaultOAuth2UserService {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final MemberCache memberCache;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private static final String DEFAULT_PASSWORD = "1111";
+
+    // 이메일별로 진행 중인 최초 등록 작업
+    private final ConcurrentMap<String, CompletableFuture<MemberSnapshot>> inFlight = new ConcurrentHashMap<>();
+
+    // 소셜 회원의 기본 패스워드(1111)를 BCrypt로 만든 값
+    private volatile String defaultPasswordHash;
+
     /**
      *
      * @param userRequest
@@ -45,8 +63,7 @@ public class ClubOAuthUserDetailsService extends DefaultOAuth2UserService {
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
 
-        log.info("-----------------------------------");
-        log.info("userRequest: " + userRequest);
+        log.debug("userRequest: {}", userRequest);
 
         /**
          * loadUser()는 OAuth2UserRequest라는 타입의 파라미터와 OAuth2User라는 타입의 리턴 타입을 반환합니다.
@@ -56,15 +73,16 @@ public class ClubOAuthUserDetailsService extends DefaultOAuth2UserService {
 
         String clientName = userRequest.getClientRegistration().getClientName();
 
-        log.info("clientName: " + clientName); // Google로 출력
-        log.info(userRequest.getAdditionalParameters());
+        log.debug("clientName: {}", clientName); // Google로 출력
+        log.debug("additionalParameters: {}", userRequest.getAdditionalParameters());
 
         OAuth2User oAuth2User = super.loadUser(userRequest);
 
-        log.info("==================================");
-        oAuth2User.getAttributes().forEach((k,v) -> {
-            log.info(k + ":" + v);
-        });
+        if(log.isDebugEnabled()){
+            oAuth2User.getAttributes().forEach((k,v) -> {
+                log.debug("{}:{}", k, v);
+            });
+        }
 
         String email = null;
 
@@ -72,7 +90,7 @@ public class ClubOAuthUserDetailsService extends DefaultOAuth2UserService {
             email = oAuth2User.getAttribute("email");
         }
 
-        log.info("EMAIL: " + email);
+        log.debug("EMAIL: {}", email);
 
         /*
         ClubMember member = saveSocialMember(email);
@@ -80,43 +98,139 @@ public class ClubOAuthUserDetailsService extends DefaultOAuth2UserService {
         return oAuth2User;
         */
 
-        ClubMember member = saveSocialMember(email);
+        MemberSnapshot member = saveSocialMember(email);
 
         ClubAuthMemberDTO clubAuthMember = new ClubAuthMemberDTO(
                 member.getEmail(),
                 member.getPassword(),
                 true,
-                member.getRoleSet().stream().map(
-                   role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                    .collect(Collectors.toList()),
+                member.getAuthorities(),
                 oAuth2User.getAttributes()
         );
 
         clubAuthMember.setName(member.getName());
+        clubAuthMember.setDefaultPassword(member.isDefaultPassword());
 
         return clubAuthMember;
     }
 
-    private ClubMember saveSocialMember(String email) {
+    /**
+     * 소셜 회원 조회/등록
+     *
+     * 1) 이미 가입한 회원은 회원 캐시 또는 findByEmail() 한번으로 처리
+     * 2) 처음 로그인하는 회원은 'insert ignore'로 등록하므로 동시에 로그인해도 중복키 오류가 발생하지 않습니다.
+     * 3) 같은 이메일로 동시에 들어온 최초 로그인은 먼저 들어온 요청의 결과를 같이 사용합니다.
+     * 4) 기본 패스워드(1111)는 매번 BCrypt로 만들지 않고 한번 만들어 둔 값을 사용합니다.
+     * 5) 기본 패스워드 사용 여부를 저장하기 전에 가입한 회원은 처음 로그인할 때 한번만 확인합니다.
+     */
+    private MemberSnapshot saveSocialMember(String email) {
 
         //기존에 동일한 이메일로 가입한 회원의 있는 경우에는 그대로 조회만
-        Optional<ClubMember> result = repository.findByEmail(email, true);
+        Optional<MemberSnapshot> result = memberCache.get(email, true, () -> repository.findByEmail(email, true));
 
         if(result.isPresent()){
-            return result.get();
+            MemberSnapshot member = result.get();
+
+            return member.isDefaultPasswordChecked() ? member : checkDefaultPassword(member);
         }
 
-        // 없다면 회원 추가 패스워드는 1111 이름은 그냥 이메일 주소로
-        ClubMember clubMember = ClubMember.builder().email(email)
-                .name(email)
-                .password(passwordEncoder.encode("1111"))
-                .fromSocial(true)
-                .build();
+        CompletableFuture<MemberSnapshot> provisioning = new CompletableFuture<>();
+        CompletableFuture<MemberSnapshot> running = inFlight.putIfAbsent(email, provisioning);
+
+        if(running != null){
+            return running.join();
+        }
+
+        try {
+            MemberSnapshot member = provision(email);
+            memberCache.put(member);
+            provisioning.complete(member);
+            return member;
+        } catch (RuntimeException e) {
+            provisioning.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(email, provisioning);
+        }
+    }
+
+    private MemberSnapshot provision(String email) {
+
+        String password = defaultPassword();
+
+        return new TransactionTemplate(transactionManager).execute(status -> {
+
+            // 없다면 회원 추가 패스워드는 1111 이름은 그냥 이메일 주소로
+            int inserted = repository.insertSocialMember(email, password, email);
+
+            if(inserted == 1){
+                repository.insertMemberRole(email, ClubMemberRole.USER.ordinal());
+
+                ClubMember clubMember = ClubMember.builder().email(email)
+                        .name(email)
+                        .password(password)
+                        .fromSocial(true)
+                        .defaultPassword(true)
+                        .defaultPasswordChecked(true)
+                        .build();
 
-        clubMember.addMemberRole(ClubMemberRole.USER);
+                clubMember.addMemberRole(ClubMemberRole.USER);
 
-        repository.save(clubMember);
+                return MemberSnapshot.of(clubMember);
+            }
 
-        return clubMember;
+            // 다른 서버(또는 같은 이메일의 일반 회원)가 먼저 등록한 경우
+            log.debug("member already exists: {}", email);
+
+            ClubMember clubMember = repository.findById(email)
+                    .orElseThrow(() -> new IllegalStateException("member not found after insert: " + email));
+
+            return MemberSnapshot.of(clubMember);
+        });
+    }
+
+    /**
+     * 패스워드가 기본 패스워드인지 BCrypt로 비교해서 저장하고 회원 캐시를 갱신합니다.
+     * passwordEncoder가 바쁘면(PasswordEncoderBusyException) 이번 로그인은 확인하지 않고 다음 로그인에서 다시 확인합니다.
+     */
+    private MemberSnapshot checkDefaultPassword(MemberSnapshot member) {
+
+        String email = member.getEmail();
+
+        boolean defaultPassword;
+
+        try {
+            defaultPassword = passwordEncoder.matches(DEFAULT_PASSWORD, member.getPassword());
+        } catch (PasswordEncoderBusyException e) {
+            log.warn("default password check skipped: {}", email);
+            return member;
+        }
+
+        MemberSnapshot checked = new TransactionTemplate(transactionManager).execute(status -> {
+            repository.updateDefaultPassword(email, defaultPassword);
+
+            return repository.findByEmail(email, true).map(MemberSnapshot::of).orElse(member);
+        });
+
+        memberCache.put(checked);
+
+        log.debug("default password checked: {} {}", email, defaultPassword);
+
+        return checked;
+    }
+
+    private String defaultPassword() {
+
+        String hash = defaultPasswordHash;
+
+        if(hash == null){
+            synchronized (this){
+                if(defaultPasswordHash == null){
+                    defaultPasswordHash = passwordEncoder.encode(DEFAULT_PASSWORD);
+                }
+                hash = defaultPasswordHash;
+            }
+        }
+        return hash;
     }
 }
@@ -2,17 +2,18 @@ package org.zerock.club.security.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.zerock.club.entity.ClubMember;
 import org.zerock.club.repository.ClubMemberRepository;
+import org.zerock.club.security.cache.MemberCache;
+import org.zerock.club.security.cache.MemberSnapshot;
 import org.zerock.club.security.dto.ClubAuthMemberDTO;
 
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * ClubMember가 ClubAuthMemberDTO라는 타입으로 처리된 가장 큰 이유는 사용자의 정보를 가져오는 핵심적인 역할을 하는
@@ -27,10 +28,12 @@ import java.util.stream.Collectors;
 @Log4j2
 @Service
 @RequiredArgsConstructor // ClubMemberRepositoru를 주입받을 수 있도록 어노테이션 선언
-public class ClubUserDetailService implements UserDetailsService {
+public class ClubUserDetailService implements UserDetailsService, UserDetailsPasswordService {
 
     private final ClubMemberRepository clubMemberRepository;
 
+    private final MemberCache memberCache;
+
     /**
      *
      * ---- UserDetails 인터페이스
@@ -47,35 +50,50 @@ public class ClubUserDetailService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        log.info("ClubUserDetailService loadUserByUsername " + username);
+        log.debug("loadUserByUsername: {}", username);
 
         // userName이 실제로는 ClubMember에서 email을 의미
-        Optional<ClubMember> result = clubMemberRepository.findByEmail(username, false);
+        // 캐시에 없을 때만 findByEmail()로 조회합니다.
+        Optional<MemberSnapshot> result = memberCache.get(username, false,
+                () -> clubMemberRepository.findByEmail(username, false));
 
         if(result.isEmpty()){
             throw new UsernameNotFoundException("Check Email or Social");
         }
 
-        ClubMember clubMember = result.get();
+        MemberSnapshot clubMember = result.get();
 
-        log.info("----------------------------------------------");
-        log.info(clubMember);
+        log.debug("loaded: {}", clubMember);
 
         /**
          * ClubMember를 처리할 수 있도록 DTO와 같은 개념으로 별도의 클래스를 구성하고
          * 이를 활용하는 방법
          */
-        ClubAuthMemberDTO clubAuthMember = new ClubAuthMemberDTO(
-                clubMember.getEmail(),
-                clubMember.getPassword(),
-                clubMember.isFromSocial(),
-                clubMember.getRoleSet().stream()
-                    .map(role -> new SimpleGrantedAuthority("ROLE_"+role.name())).collect(Collectors.toSet())
-        );
-
-        clubAuthMember.setName(clubMember.getName());
-        clubAuthMember.setFromSocial(clubMember.isFromSocial());
+        ClubAuthMemberDTO clubAuthMember = clubMember.toAuthMember();
 
         return clubAuthMember;
     }
+
+    /**
+     * BCrypt의 cost가 변경된 경우 로그인에 성공한 시점에 DaoAuthenticationProvider가 호출합니다.
+     * 새로운 cost로 만들어진 패스워드를 저장하고, 저장되면 엔티티 리스너가 회원 캐시를 비웁니다.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        log.info("rehash password: {}", user.getUsername());
+
+        Optional<ClubMember> result = clubMemberRepository.findByEmail(user.getUsername(), false);
+
+        if(result.isEmpty()){
+            return user;
+        }
+
+        ClubMember clubMember = result.get();
+        clubMember.changePassword(newPassword);
+
+        clubMemberRepository.save(clubMember);
+
+        return MemberSnapshot.of(clubMember).toAuthMember();
+    }
 }
@@ -2,25 +2,59 @@ package org.zerock.club.security.service;
 
 import org.zerock.club.entity.Membership;
 import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.security.dto.LeaderboardPageDTO;
 import org.zerock.club.security.dto.MembershipDTO;
+import org.zerock.club.security.dto.PointAccrualDTO;
+import org.zerock.club.security.dto.PointAccrualResultDTO;
+import org.zerock.club.security.dto.PointEventDTO;
+import org.zerock.club.security.dto.PointHistoryPageDTO;
 
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 
 public interface MembershipService {
 
-    // 맴버십 상세조회하기
+    // 맴버십 상세조회하기 (MembershipCache, 없으면 null)
     MembershipDTO get(String userId, String membershipId);
 
-    // 맴버십 전체 조회하기
+    // 맴버십 전체 조회하기 (MembershipCache, 수정할 수 없는 List)
     List<MembershipDTO> getAll(String userId);
 
+    // fields(쉼표로 구분)에 있는 속성만 조회하기 (캐시에 있으면 메모리에서, 모르는 속성이면 IllegalArgumentException)
+    List<Map<String, Object>> getAll(String userId, String fields);
+
     // 맴버십 등록하기
     void register(MembershipDTO membershipDTO);
 
     // 맴버십 삭제하기
     void remove(String userId, String membershipId);
 
-    public void addPoint(String userId, String membershipId, int money);
+    // 결제 금액의 1%를 원장에 적립하고 적립 후의 잔액을 반환 (멤버십이 없으면 empty)
+    OptionalLong addPoint(String userId, String membershipId, int money);
+
+    // 여러 결제의 적립을 멤버십별로 합쳐서 청크 단위 트랜잭션으로 원장에 추가하고, 행마다의 결과를 요청 순서대로 반환
+    List<PointAccrualResultDTO> addPoints(List<PointAccrualDTO> accruals);
+
+    // 잔액 = 스냅샷 + 아직 반영되지 않은 원장 (멤버십이 없으면 empty)
+    OptionalLong getBalance(String userId, String membershipId);
+
+    // 적립/사용/소멸 이벤트를 원장에 추가하고 추가한 건수를 반환 (point의 부호가 type과 맞지 않으면 IllegalArgumentException)
+    int recordPoints(List<PointEventDTO> events);
+
+    // 포인트 원장을 최근 이벤트부터 한 페이지씩 (cursor가 null이면 첫 페이지, 잘못된 cursor는 IllegalArgumentException)
+    PointHistoryPageDTO getHistory(String userId, String membershipId, String cursor, int size);
+
+    // 멤버십의 포인트 순위표 한 페이지 (userId가 있으면 그 회원이 가운데인 페이지이고 순위표에 없으면 null, 준비되기 전에는 IllegalStateException)
+    LeaderboardPageDTO getLeaderboard(String membershipId, String userId, int offset, int size);
+
+    // 적립을 모아서 나중에 저장 (PointAccumulator, 저장 전에는 조회 결과에 반영되지 않습니다)
+    void addPointDeferred(String userId, String membershipId, int money);
+
+    // 결제 금액에 대한 적립 포인트
+    default int toPoint(int money){
+        return (int)(money * 0.01);
+    }
 
     default Membership dtoToEntity(MembershipDTO membershipDTO){
 
@@ -2,65 +2,344 @@ package org.zerock.club.security.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.zerock.club.entity.Membership;
 import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.entity.PointEventType;
 import org.zerock.club.repository.MembershipRepository;
+import org.zerock.club.repository.PointLedgerRepository;
+import org.zerock.club.repository.SparseFields;
+import org.zerock.club.security.cache.MembershipCache;
+import org.zerock.club.security.cache.PointAccumulator;
+import org.zerock.club.security.cache.PointLeaderboard;
+import org.zerock.club.security.dto.LeaderboardPageDTO;
 import org.zerock.club.security.dto.MembershipDTO;
+import org.zerock.club.security.dto.PointAccrualDTO;
+import org.zerock.club.security.dto.PointAccrualResultDTO;
+import org.zerock.club.security.dto.PointEventDTO;
+import org.zerock.club.security.dto.PointHistoryPageDTO;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Log4j2
 @RequiredArgsConstructor
 public class MembershipServiceImpl implements  MembershipService{
 
+    // 응답 속성 이름 -> MembershipDTO의 값 (MembershipRepository.MEMBERSHIP_FIELDS와 같은 이름)
+    private static final Map<String, Function<MembershipDTO, Object>> DTO_FIELDS = Map.of(
+            "userId", MembershipDTO::getUserId,
+            "membershipId", MembershipDTO::getMembershipId,
+            "membershipName", MembershipDTO::getMembershipName,
+            "membershipStatus", MembershipDTO::isMembershipStatus,
+            "point", MembershipDTO::getPoint,
+            "startDate", MembershipDTO::getStartDate);
+
     private final MembershipRepository membershipRepository;
 
+    private final PointLedgerRepository pointLedgerRepository;
+
+    private final PointAccumulator pointAccumulator;
+
+    private final MembershipCache membershipCache;
+
+    private final PointLeaderboard pointLeaderboard;
+
+    private final PlatformTransactionManager transactionManager;
+
+    // addPoints()에서 트랜잭션 하나로 적립하는 멤버십 수
+    @Value("${club.membership.points.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
+    /**
+     * 회원의 멤버십 목록(캐시)에서 찾습니다. 잔액이 포함된 값입니다.
+     */
     @Override
+    @Transactional(readOnly = true)
     public MembershipDTO get(String userId, String membershipId) {
 
-        Optional<Membership> result = membershipRepository.findById(new MembershipPK("user1", "spc"));
-
-        return entityToDTO(result.get());
+        return membershipCache.get(userId).stream()
+                .filter(membership -> membership.getMembershipId().equals(membershipId))
+                .findFirst()
+                .orElse(null);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MembershipDTO> getAll(String userId) {
 
-        List<Object[]> result = membershipRepository.getMembership(userId);
+        return membershipCache.get(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAll(String userId, String fields) {
+
+        Set<String> names = MembershipRepository.MEMBERSHIP_FIELDS.parse(fields);
 
-        System.out.println((Membership)result.get(0)[0]);
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("no fields: " + fields);
+        }
+
+        // 캐시에 있으면 메모리에서 고르고, 없으면 고른 컬럼만 조회합니다. (캐시에 넣지는 않습니다)
+        List<MembershipDTO> cached = membershipCache.getIfPresent(userId);
 
-        List<MembershipDTO> membershipDTOList = new ArrayList<>();
-        for (int i=0 ; i<result.size() ;i++){
-            membershipDTOList.add ( entityToDTO((Membership)result.get(i)[0] ));
+        if (cached != null) {
+            return cached.stream().map(membership -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                names.forEach(name -> map.put(name, DTO_FIELDS.get(name).apply(membership)));
+                return map;
+            }).collect(Collectors.toList());
         }
 
-        return membershipDTOList;
+        return membershipRepository.getSparseMembershipList(userId, names).stream()
+                .map(tuple -> SparseFields.toMap(tuple, names))
+                .collect(Collectors.toList());
     }
 
+    /**
+     * 같은 트랜잭션에서 멤버십의 이전 원장을 반영한 것으로 표시하므로 잔액은 membershipDTO의 point 입니다.
+     * (같은 멤버십을 다시 등록해도 이전 원장은 잔액에 포함되지 않습니다)
+     */
     @Override
+    @Transactional
     public void register(MembershipDTO membershipDTO) {
 
         Membership membership = dtoToEntity(membershipDTO);
 
+        pointLedgerRepository.markFolded(membershipDTO.getUserId(), membershipDTO.getMembershipId());
+
         membershipRepository.save(membership);
 
+        membershipCache.invalidate(membershipDTO.getUserId());
+
+        pointLeaderboard.put(membershipDTO.getMembershipId(), membershipDTO.getUserId(), membershipDTO.getPoint());
     }
 
     @Override
     public void remove(String userId, String membershipId) {
         membershipRepository.deleteById(new MembershipPK(userId, membershipId));
+
+        membershipCache.invalidate(userId);
+
+        pointLeaderboard.remove(membershipId, userId);
     }
 
+    /**
+     * membership을 수정하지 않고 원장에 적립(ACCRUAL) 한 행을 추가한 다음 잔액을 조회합니다.
+     * 같은 멤버십에 동시에 적립해도 서로 잠금을 기다리지 않습니다.
+     */
     @Override
-    public void addPoint(String userId, String membershipId, int money) {
-        Optional<Membership> result = membershipRepository.findById(new MembershipPK(userId, membershipId));
-        Membership membership = result.get();
-        membership.setPoint( membership.getPoint() + ((int)(money * 0.01)));
-        membershipRepository.save(membership);
+    @Transactional
+    public OptionalLong addPoint(String userId, String membershipId, int money) {
+
+        int point = toPoint(money);
+
+        if (point < 0) {
+            throw new IllegalArgumentException("negative point: " + point);
+        }
+
+        if (!membershipRepository.existsById(new MembershipPK(userId, membershipId))) {
+            return OptionalLong.empty();
+        }
+
+        if (point > 0) {
+            pointLedgerRepository.appendAll(List.of(PointEventDTO.builder()
+                    .userId(userId)
+                    .membershipId(membershipId)
+                    .type(PointEventType.ACCRUAL)
+                    .point(point)
+                    .build()));
+
+            membershipCache.invalidate(userId);
+
+            pointLeaderboard.add(membershipId, userId, point);
+        }
+
+        return getBalance(userId, membershipId);
+    }
+
+    /**
+     * 같은 멤버십의 행은 합쳐서 원장에 한 행(범위를 넘으면 여러 행)으로 추가합니다.
+     * batchChunkSize개의 멤버십마다 트랜잭션 하나로, 멤버십이 있는지 회원 아이디로 한번에 조회한 다음 원장에 JDBC 배치로 추가합니다.
+     *
+     * 청크가 실패하면 그 청크만 롤백됩니다. 저장할 수 없는 행(너무 긴 아이디 등) 때문에 실패한 경우에는
+     * 멤버십 하나씩 다시 저장하므로 나머지 행은 적립됩니다. 그 밖의 실패(데이터베이스 장애 등)는 청크의 모든 행이 FAILED 입니다.
+     */
+    @Override
+    public List<PointAccrualResultDTO> addPoints(List<PointAccrualDTO> accruals) {
+
+        List<PointAccrualResultDTO> results = new ArrayList<>(accruals.size());
+
+        Map<MembershipPK, List<PointAccrualResultDTO>> merged = new LinkedHashMap<>();
+
+        for (PointAccrualDTO accrual : accruals) {
+
+            PointAccrualResultDTO result = PointAccrualResultDTO.builder()
+                    .userId(accrual.getUserId())
+                    .membershipId(accrual.getMembershipId())
+                    .point(toPoint(accrual.getMoney()))
+                    .build();
+
+            results.add(result);
+
+            if (accrual.getUserId() == null || accrual.getMembershipId() == null || result.getPoint() < 0) {
+                result.setStatus(PointAccrualResultDTO.Status.INVALID);
+                continue;
+            }
+
+            merged.computeIfAbsent(new MembershipPK(accrual.getUserId(), accrual.getMembershipId()),
+                    key -> new ArrayList<>()).add(result);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<Map.Entry<MembershipPK, List<PointAccrualResultDTO>>> entries = new ArrayList<>(merged.entrySet());
+
+        for (int from = 0; from < entries.size(); from += batchChunkSize) {
+            List<Map.Entry<MembershipPK, List<PointAccrualResultDTO>>> chunk =
+                    entries.subList(from, Math.min(from + batchChunkSize, entries.size()));
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> accrueChunk(chunk));
+            } catch (DataIntegrityViolationException e) {
+                for (Map.Entry<MembershipPK, List<PointAccrualResultDTO>> entry : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> accrueChunk(List.of(entry)));
+                    } catch (RuntimeException rowException) {
+                        log.error("point accrual failed: {}", entry.getKey(), rowException);
+                        setStatus(List.of(entry), PointAccrualResultDTO.Status.FAILED);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("point accrual failed: {} memberships", chunk.size(), e);
+                setStatus(chunk, PointAccrualResultDTO.Status.FAILED);
+            }
+        }
+
+        log.debug("addPoints: {} rows, {} memberships", accruals.size(), entries.size());
+
+        return results;
+    }
+
+    private void accrueChunk(List<Map.Entry<MembershipPK, List<PointAccrualResultDTO>>> chunk) {
+
+        Set<String> userIds = chunk.stream().map(entry -> entry.getKey().getUserId()).collect(Collectors.toSet());
+
+        Set<MembershipPK> existing = new HashSet<>(membershipRepository.getMembershipKeys(userIds));
+
+        List<PointEventDTO> events = new ArrayList<>(chunk.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<MembershipPK, List<PointAccrualResultDTO>> entry : chunk) {
+            MembershipPK key = entry.getKey();
+
+            if (!existing.contains(key)) {
+                setStatus(List.of(entry), PointAccrualResultDTO.Status.NOT_FOUND);
+                continue;
+            }
+
+            long point = entry.getValue().stream().mapToLong(PointAccrualResultDTO::getPoint).sum();
+
+            PointEventDTO.addChanges(events, key.getUserId(), key.getMembershipId(), point, now);
+
+            pointLeaderboard.add(key.getMembershipId(), key.getUserId(), point);
+
+            setStatus(List.of(entry), PointAccrualResultDTO.Status.ACCRUED);
+        }
+
+        pointLedgerRepository.appendAll(events);
+
+        events.stream().map(PointEventDTO::getUserId).distinct().forEach(membershipCache::invalidate);
+    }
+
+    private static void setStatus(List<Map.Entry<MembershipPK, List<PointAccrualResultDTO>>> entries,
+                                  PointAccrualResultDTO.Status status) {
+        entries.forEach(entry -> entry.getValue().forEach(result -> result.setStatus(status)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OptionalLong getBalance(String userId, String membershipId) {
+
+        return membershipRepository.getBalance(userId, membershipId)
+                .map(OptionalLong::of)
+                .orElseGet(OptionalLong::empty);
+    }
+
+    /**
+     * 원장에 추가만 하므로 멤버십이 있는지는 확인하지 않습니다. (없는 멤버십의 이벤트는 잔액에 반영되지 않습니다)
+     */
+    @Override
+    @Transactional
+    public int recordPoints(List<PointEventDTO> events) {
+
+        for (PointEventDTO event : events) {
+            if (event.getUserId() == null || event.getMembershipId() == null || event.getType() == null
+                    || !event.getType().allows(event.getPoint())) {
+                throw new IllegalArgumentException("invalid point event: " + event);
+            }
+        }
+
+        pointLedgerRepository.appendAll(events);
+
+        events.stream().map(PointEventDTO::getUserId).distinct().forEach(membershipCache::invalidate);
+
+        events.forEach(event -> pointLeaderboard.add(event.getMembershipId(), event.getUserId(), event.getPoint()));
+
+        return events.size();
+    }
+
+    /**
+     * 다음 페이지가 있는지 알기 위해서 size + 1건을 조회합니다. 커서는 마지막으로 받은 원장 번호입니다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PointHistoryPageDTO getHistory(String userId, String membershipId, String cursor, int size) {
+
+        PageRequest limit = PageRequest.of(0, size + 1);
+
+        List<PointEventDTO> eventList = cursor == null || cursor.isEmpty()
+                ? pointLedgerRepository.getFirstHistoryPage(userId, membershipId, limit)
+                : pointLedgerRepository.getHistoryBefore(userId, membershipId, Long.parseLong(cursor), limit);
+
+        boolean hasNext = eventList.size() > size;
+
+        List<PointEventDTO> events = hasNext ? eventList.subList(0, size) : eventList;
+
+        String nextCursor = hasNext ? String.valueOf(events.get(events.size() - 1).getId()) : null;
+
+        return PointHistoryPageDTO.builder().events(events).nextCursor(nextCursor).build();
+    }
+
+    // 순위표(PointLeaderboard)는 메모리에 있으므로 데이터베이스를 조회하지 않습니다.
+    @Override
+    public LeaderboardPageDTO getLeaderboard(String membershipId, String userId, int offset, int size) {
+
+        if (userId == null || userId.isEmpty()) {
+            return pointLeaderboard.page(membershipId, offset, size);
+        }
+        return pointLeaderboard.around(membershipId, userId, size);
+    }
+
+    @Override
+    public void addPointDeferred(String userId, String membershipId, int money) {
+
+        pointAccumulator.add(userId, membershipId, toPoint(money));
     }
 }
@@ -0,0 +1,19 @@
+package org.zerock.club.security.service;
+
+import lombok.Getter;
+
+/**
+ * 일괄 등록(registerAll) 중에 입력을 읽지 못했거나 저장에 실패한 경우
+ * 실패한 청크만 롤백되므로 그 전까지 커밋된 건수(inserted)를 함께 전달합니다.
+ */
+@Getter
+public class NoteBatchException extends RuntimeException {
+
+    private final long inserted;
+
+    public NoteBatchException(long inserted, Throwable cause) {
+        super("note batch failed after " + inserted + " notes: " + cause.getMessage(), cause);
+        this.inserted = inserted;
+    }
+
+}
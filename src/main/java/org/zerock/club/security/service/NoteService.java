@@ -3,20 +3,49 @@ package org.zerock.club.security.service;
 import org.zerock.club.entity.ClubMember;
 import org.zerock.club.entity.Note;
 import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NoteListVersionDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+import org.zerock.club.security.dto.SparseNotePageDTO;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NoteService {
     Long register(NoteDTO noteDTO);
 
+    // JSON 배열 또는 NDJSON으로 받은 노트를 청크 단위로 저장하고 저장한 건수를 반환 (실패하면 NoteBatchException)
+    long registerAll(InputStream in);
+
     NoteDTO get(Long num);
 
-    void modify(NoteDTO noteDTO);
+    // 노트가 없으면 null
+    LocalDateTime getModDate(Long num);
+
+    NoteListVersionDTO getListVersion(String writerEmail);
+
+    // 노트가 없으면 false, 버전이 다르면 NoteVersionConflictException
+    boolean modify(NoteDTO noteDTO);
 
     void remove(Long num);
 
+    // 목록 조회는 content 없이 preview만 채웁니다.
     List<NoteDTO> getAllWithWriter(String writerEmail);
 
+    // cursor가 null이면 첫 페이지 (content 없이 preview만)
+    NotePageDTO getPage(String writerEmail, String cursor, int size);
+
+    // fields(쉼표로 구분)에 있는 속성만 조회하는 getPage() (모르는 속성이면 IllegalArgumentException)
+    SparseNotePageDTO getPage(String writerEmail, String cursor, int size, String fields);
+
+    // 제목/내용으로 검색 (email이 null이면 모든 작성자, 색인이 준비되지 않았으면 IllegalStateException)
+    List<NoteDTO> search(String query, String writerEmail, int size);
+
+    // 작성자의 모든 노트를 한 줄에 하나씩(NDJSON) 출력하고 출력한 건수를 반환
+    long export(String writerEmail, OutputStream out) throws IOException;
+
     default Note dtoToEntity(NoteDTO noteDTO){
 
         Note note = Note.builder()
@@ -36,6 +65,7 @@ public interface NoteService {
                 .writerEmail(note.getWriter().getEmail())
                 .regDate(note.getRegDate())
                 .modDate(note.getModDate())
+                .version(note.getVersion())
                 .build();
 
         return noteDTO;
@@ -1,15 +1,45 @@
 package org.zerock.club.security.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zerock.club.entity.ClubMember;
 import org.zerock.club.entity.Note;
 import org.zerock.club.repository.NoteRepository;
+import org.zerock.club.repository.SparseFields;
+import org.zerock.club.security.cache.NoteCache;
+import org.zerock.club.security.cache.NoteSearchIndex;
+import org.zerock.club.security.dto.NoteCursor;
 import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NoteListVersionDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+import org.zerock.club.security.dto.SparseNotePageDTO;
+import org.zerock.club.util.ContentCodec;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @Log4j2
@@ -18,47 +48,163 @@ public class NoteServiceImpl implements NoteService{
 
     private final NoteRepository noteRepository;
 
+    private final ObjectMapper objectMapper;
+
+    private final NoteCache noteCache;
+
+    private final NoteSearchIndex noteSearchIndex;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // registerAll()에서 트랜잭션 하나로 저장하는 노트 수
+    @Value("${club.notes.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
+    // export() 중에 출력 버퍼를 내보내는 간격
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+
     @Override
     public Long register(NoteDTO noteDTO) {
 
         Note note = dtoToEntity(noteDTO);
 
-        log.info("===========================");
-        log.info(note);
+        log.debug("register: {}", note);
 
         noteRepository.save(note);
 
+        noteSearchIndex.add(entityToDTO(note));
+
         return note.getNum();
     }
 
+    /**
+     * 요청 본문을 한번에 읽지 않고 노트를 하나씩 읽으면서 batchChunkSize 건마다 트랜잭션 하나로 저장합니다.
+     * 본문이 '['로 시작하면 배열의 원소를, 아니면 줄마다(공백으로 구분된) JSON 객체를 읽습니다.
+     *
+     * 번호는 club_sequence에서 미리 받아둔 값을 사용하므로 insert는 hibernate.jdbc.batch_size 단위의 JDBC 배치로 실행되고,
+     * 작성자는 getReference()로 연결하므로 club_member를 조회하지 않습니다.
+     * 청크마다 flush/clear 하므로 입력 크기와 관계없이 영속성 컨텍스트에는 한 청크만 남습니다.
+     *
+     * 실패하면 그 청크만 롤백되고 이전 청크는 커밋된 상태로 남습니다.
+     */
     @Override
+    public long registerAll(InputStream in) {
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<NoteDTO> chunk = new ArrayList<>(batchChunkSize);
+
+        long count = 0;
+
+        try (MappingIterator<NoteDTO> iterator = objectMapper.readerFor(NoteDTO.class).readValues(in)) {
+
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+
+                if (chunk.size() == batchChunkSize) {
+                    count += insertChunk(transactionTemplate, chunk);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                count += insertChunk(transactionTemplate, chunk);
+            }
+
+        } catch (IOException | RuntimeException e) {
+            throw new NoteBatchException(count, e);
+        }
+
+        log.debug("registerAll: {} notes", count);
+
+        return count;
+    }
+
+    private int insertChunk(TransactionTemplate transactionTemplate, List<NoteDTO> chunk) {
+
+        transactionTemplate.executeWithoutResult(status -> {
+
+            for (NoteDTO noteDTO : chunk) {
+                Note note = Note.builder()
+                        .title(noteDTO.getTitle())
+                        .content(noteDTO.getContent())
+                        .writer(entityManager.getReference(ClubMember.class, noteDTO.getWriterEmail()))
+                        .build();
+
+                entityManager.persist(note);
+
+                noteSearchIndex.add(NoteDTO.builder()
+                        .num(note.getNum())
+                        .title(noteDTO.getTitle())
+                        .content(noteDTO.getContent())
+                        .writerEmail(noteDTO.getWriterEmail())
+                        .build());
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+        });
+
+        return chunk.size();
+    }
+
+    // NoteCache에 없을 때만 조회합니다.
+    @Override
+    @Transactional(readOnly = true)
     public NoteDTO get(Long num) {
 
-        Optional<Note> result = noteRepository.getWithWriter(num);
+        return noteCache.get(num);
+    }
+
+    // 캐시에 있으면 캐시의 값을, 없으면 modDate만 조회합니다.
+    @Override
+    @Transactional(readOnly = true)
+    public LocalDateTime getModDate(Long num) {
+
+        NoteDTO cached = noteCache.getIfPresent(num);
 
-        if( result.isPresent() ){
-            return entityToDTO(result.get());
+        if (cached != null) {
+            return cached.getModDate();
         }
 
-        return null;
+        return noteRepository.getModDate(num).orElse(null);
     }
 
     @Override
-    public void modify(NoteDTO noteDTO) {
+    @Transactional(readOnly = true)
+    public NoteListVersionDTO getListVersion(String writerEmail) {
 
-        Long num = noteDTO.getNum();
+        return noteRepository.getListVersion(writerEmail);
+    }
 
-        Optional<Note> result = noteRepository.findById(num);
+    /**
+     * 엔티티를 읽지 않고 버전 조건이 붙은 UPDATE 한 번으로 수정합니다.
+     * 실패한 경우에만 노트가 있는지 확인해서 '없음'과 '다른 요청이 먼저 수정함'을 구분합니다.
+     */
+    @Override
+    public boolean modify(NoteDTO noteDTO) {
 
-        if( result.isPresent() ){
+        Long num = noteDTO.getNum();
+        Long version = Objects.requireNonNull(noteDTO.getVersion(), "version");
 
-            Note note = result.get();
+        int updated = noteRepository.updateWithVersion(num, version, noteDTO.getTitle(),
+                ContentCodec.encode(noteDTO.getContent()), ContentCodec.preview(noteDTO.getContent(), Note.PREVIEW_LENGTH),
+                LocalDateTime.now());
 
-            note.changeTitle(noteDTO.getTitle());
-            note.changeContent(noteDTO.getContent());
-            noteRepository.save(note);
+        if (updated == 0) {
+            if (!noteRepository.existsById(num)) {
+                return false;
+            }
+            throw new NoteVersionConflictException(num, version);
         }
 
+        noteCache.invalidate(num);
+        noteSearchIndex.update(num, noteDTO.getTitle(), noteDTO.getContent());
+
+        return true;
     }
 
     @Override
@@ -66,13 +212,144 @@ public class NoteServiceImpl implements NoteService{
 
         noteRepository.deleteById(num);
 
+        noteCache.invalidate(num);
+        noteSearchIndex.remove(num);
+
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<NoteDTO> getAllWithWriter(String writerEmail) {
 
-        List<Note> noteList = noteRepository.getList(writerEmail);
+        return noteRepository.getNoteDTOList(writerEmail);
+    }
+
+    /**
+     * 검색 색인에서 노트 번호를 찾고 내용은 NoteCache에서 한번에 가져옵니다. (캐시에 없는 노트는 조회 한 번)
+     * 결과는 색인의 점수 순서이고, 색인과 데이터베이스 사이에 잠깐 차이가 있을 수 있으므로 이미 삭제된 노트는 건너뜁니다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteDTO> search(String query, String writerEmail, int size) {
+
+        long[] nums = noteSearchIndex.search(query, writerEmail, size);
+
+        List<Long> keys = new ArrayList<>(nums.length);
+
+        for (long num : nums) {
+            keys.add(num);
+        }
+
+        Map<Long, NoteDTO> found = noteCache.getAll(keys);
+
+        List<NoteDTO> notes = new ArrayList<>(nums.length);
+
+        for (Long num : keys) {
+            NoteDTO noteDTO = found.get(num);
+            if (noteDTO != null) {
+                notes.add(noteDTO);
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * 다음 페이지가 있는지 알기 위해서 size + 1건을 조회하고, 남는 1건은 응답에서 제외합니다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public NotePageDTO getPage(String writerEmail, String cursor, int size) {
+
+        PageRequest limit = PageRequest.of(0, size + 1);
+
+        List<NoteDTO> noteList;
+
+        if (cursor == null || cursor.isEmpty()) {
+            noteList = noteRepository.getFirstPage(writerEmail, limit);
+        } else {
+            NoteCursor noteCursor = NoteCursor.decode(cursor);
+            noteList = noteRepository.getPageAfter(writerEmail, noteCursor.getModDate(), noteCursor.getNum(), limit);
+        }
+
+        boolean hasNext = noteList.size() > size;
+
+        List<NoteDTO> notes = hasNext ? noteList.subList(0, size) : noteList;
+
+        String nextCursor = hasNext ? NoteCursor.of(notes.get(notes.size() - 1)).encode() : null;
+
+        return NotePageDTO.builder().notes(notes).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * getPage()와 같지만 select 절에 요청한 속성만 넣어서(Criteria Tuple) 조회하고, 응답도 그 속성만 담은 Map으로 만듭니다.
+     * 커서에 필요한 num/modDate는 항상 조회하지만 요청하지 않았으면 응답에서는 뺍니다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SparseNotePageDTO getPage(String writerEmail, String cursor, int size, String fields) {
+
+        Set<String> names = NoteRepository.NOTE_FIELDS.parse(fields);
+
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("no fields: " + fields);
+        }
+
+        NoteCursor after = cursor == null || cursor.isEmpty() ? null : NoteCursor.decode(cursor);
+
+        List<Tuple> tuples = noteRepository.getSparsePage(writerEmail, after, names, size + 1);
+
+        boolean hasNext = tuples.size() > size;
+
+        List<Map<String, Object>> notes = new ArrayList<>(Math.min(tuples.size(), size));
+
+        for (int i = 0; i < tuples.size() && i < size; i++) {
+            notes.add(SparseFields.toMap(tuples.get(i), names));
+        }
+
+        String nextCursor = null;
+
+        if (hasNext) {
+            Tuple last = tuples.get(size - 1);
+            nextCursor = new NoteCursor(last.get("modDate", LocalDateTime.class), last.get("num", Long.class)).encode();
+        }
+
+        return SparseNotePageDTO.builder().notes(notes).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * 노트를 하나씩 읽어서 바로 출력하므로 노트 수와 관계없이 메모리 사용량이 일정합니다.
+     * 스트림은 트랜잭션 안에서만 사용할 수 있으므로 readOnly 트랜잭션으로 실행합니다.
+     * NoteDTO로 바로 읽으므로 영속성 컨텍스트에는 아무것도 쌓이지 않고, EXPORT_FLUSH_INTERVAL 건마다 출력 버퍼를 내보냅니다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(String writerEmail, OutputStream out) throws IOException {
+
+        ObjectWriter writer = objectMapper.writerFor(NoteDTO.class);
+
+        long count = 0;
+
+        try (Stream<NoteDTO> stream = noteRepository.streamByWriter(writerEmail);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+
+            // 응답 스트림은 서블릿 컨테이너가 닫습니다.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString(""));
+
+            Iterator<NoteDTO> iterator = stream.iterator();
+
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+
+        log.debug("export: {}, {} notes", writerEmail, count);
 
-        return noteList.stream().map(note -> entityToDTO(note)).collect(Collectors.toList());
+        return count;
     }
 }
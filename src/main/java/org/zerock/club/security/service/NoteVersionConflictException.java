@@ -0,0 +1,22 @@
+package org.zerock.club.security.service;
+
+import lombok.Getter;
+
+/**
+ * 수정하려는 노트의 버전이 요청에 담긴 버전과 다른 경우 (다른 요청이 먼저 수정함)
+ * 클라이언트는 노트를 다시 조회해서 최신 버전으로 다시 수정해야 합니다.
+ */
+@Getter
+public class NoteVersionConflictException extends RuntimeException {
+
+    private final Long num;
+
+    private final long version;
+
+    public NoteVersionConflictException(Long num, long version) {
+        super("note " + num + " was modified after version " + version);
+        this.num = num;
+        this.version = version;
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.zerock.club.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 노트 내용(content)의 저장 형식
+ *
+ * 첫 바이트가 형식입니다.
+ * PLAIN   - 나머지가 UTF-8 문자열
+ * DEFLATE - 다음 4바이트가 원래 UTF-8 길이, 나머지가 deflate(raw) 압축 결과
+ *
+ * COMPRESS_THRESHOLD 바이트 이상이고 압축해서 실제로 작아지는 경우에만 압축합니다.
+ * 짧은 메모는 압축해도 거의 줄지 않고 읽을 때 비용만 늘어나기 때문입니다.
+ */
+public final class ContentCodec {
+
+    public static final int COMPRESS_THRESHOLD = 512;
+
+    private static final byte PLAIN = 0;
+
+    private static final byte DEFLATE = 1;
+
+    private ContentCodec() {
+    }
+
+    public static byte[] encode(String text) {
+
+        if (text == null) {
+            return null;
+        }
+
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+        if (utf8.length >= COMPRESS_THRESHOLD) {
+            byte[] compressed = deflate(utf8);
+
+            if (compressed.length + 5 < utf8.length + 1) {
+                return ByteBuffer.allocate(compressed.length + 5)
+                        .put(DEFLATE)
+                        .putInt(utf8.length)
+                        .put(compressed)
+                        .array();
+            }
+        }
+
+        byte[] data = new byte[utf8.length + 1];
+        data[0] = PLAIN;
+        System.arraycopy(utf8, 0, data, 1, utf8.length);
+        return data;
+    }
+
+    public static String decode(byte[] data) {
+
+        if (data == null || data.length == 0) {
+            return null;
+        }
+
+        if (data[0] == PLAIN) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+
+        if (data[0] != DEFLATE) {
+            throw new IllegalArgumentException("unknown content format: " + data[0]);
+        }
+
+        int length = ByteBuffer.wrap(data, 1, 4).getInt();
+
+        return new String(inflate(data, 5, length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 목록에 보여줄 앞부분. length자를 넘으면 잘라냅니다. (서로게이트 쌍은 나누지 않습니다)
+     */
+    public static String preview(String text, int length) {
+
+        if (text == null || text.length() <= length) {
+            return text;
+        }
+
+        int end = Character.isHighSurrogate(text.charAt(length - 1)) ? length - 1 : length;
+        return text.substring(0, end);
+    }
+
+    private static byte[] deflate(byte[] input) {
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[8192];
+
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+
+        Inflater inflater = new Inflater(true);
+
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+
+            byte[] out = new byte[length];
+            int written = 0;
+
+            while (written < length) {
+                int count = inflater.inflate(out, written, length - written);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                written += count;
+            }
+
+            return written == length ? out : Arrays.copyOf(out, written);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("corrupted content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -1,14 +1,31 @@
 package org.zerock.club.util;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.impl.DefaultClaims;
-import io.jsonwebtoken.impl.DefaultJws;
 import lombok.extern.log4j.Log4j2;
 
-import java.time.ZonedDateTime;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
-
+import java.util.UUID;
+
+/**
+ * 서명 키와 파서는 생성 시점에 한번만 만들어 두고 재사용합니다.
+ *
+ * 만료되었거나 위조된 토큰이 대량으로 들어오는 경우에도 예외나 스택 트레이스를 만들지 않도록
+ * 검증은 두 단계로 처리합니다.
+ * 1) 빠른 거절 - 토큰 형식, HMAC 서명, exp를 직접 확인해서 실패하면 바로 null을 반환
+ * 2) 1단계를 통과한 토큰만 jjwt 파서로 Claims를 만듭니다.
+ */
 @Log4j2
 public class JWTUtil {
 
@@ -17,41 +34,171 @@ public class JWTUtil {
     //1month
     private long expire = 60 * 24 * 30;
 
+    public static final String CLAIM_NAME = "name";
+
+    public static final String CLAIM_SOCIAL = "social";
+
+    public static final String CLAIM_ROLES = "roles";
+
+    private static final byte[] EXP_FIELD = "\"exp\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final Key signingKey;
+
+    // 설정이 끝난 파서는 상태를 바꾸지 않으므로 여러 스레드에서 같이 사용할 수 있습니다.
+    private final JwtParser parser;
+
+    private final ThreadLocal<Mac> hmac;
+
+    public JWTUtil() {
+        this.signingKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8),
+                SignatureAlgorithm.HS256.getJcaName());
+        this.parser = Jwts.parser().setSigningKey(signingKey);
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(SignatureAlgorithm.HS256.getJcaName());
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
     // JWT 토큰을 생성
+    // jti는 토큰을 폐기(로그아웃)할 때 사용하는 토큰 고유의 ID 입니다.
     public String generateToken(String content) throws Exception {
+        long now = System.currentTimeMillis();
+
         return Jwts.builder()
-                .setIssuedAt(new Date())
-                .setExpiration(Date.from(ZonedDateTime.now().plusMinutes(expire).toInstant()))
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expire * 60 * 1000))
                 .claim("sub", content)
-                .signWith(SignatureAlgorithm.HS256, secretKey.getBytes("UTF-8"))
+                .signWith(SignatureAlgorithm.HS256, signingKey)
+                .compact();
+    }
+
+    /**
+     * 회원의 이름, 소셜 가입 여부, 권한까지 Claims에 담은 토큰을 생성
+     * ApiCheckFilter는 이 값들만으로 인증 정보를 만들기 때문에 API 호출마다 회원 정보를 조회할 필요가 없습니다.
+     */
+    public String generateToken(String email, String name, boolean fromSocial, Collection<String> roles) throws Exception {
+        long now = System.currentTimeMillis();
+
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expire * 60 * 1000))
+                .claim("sub", email)
+                .claim(CLAIM_NAME, name)
+                .claim(CLAIM_SOCIAL, fromSocial)
+                .claim(CLAIM_ROLES, roles)
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
     // 인코딩된 문자열에서 원하는 값을 추출
     public String validateAndExtract(String tokenStr) throws Exception {
-        String contentValue = null;
+        Claims claims = validateAndGetClaims(tokenStr);
+
+        return claims == null ? null : claims.getSubject();
+    }
+
+    // 검증에 성공하면 Claims 전체를 반환, 실패하면 null
+    public Claims validateAndGetClaims(String tokenStr) throws Exception {
+
+        if (!quickCheck(tokenStr)) {
+            return null;
+        }
 
         try {
-            DefaultJws defaultJws = (DefaultJws) Jwts.parser()
-                    .setSigningKey(secretKey.getBytes("UTF-8")).parseClaimsJws(tokenStr);
+            return parser.parseClaimsJws(tokenStr).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("invalid token: {}", e.getMessage());
+            return null;
+        }
+    }
 
-            log.info(defaultJws);
-            log.info(defaultJws.getBody().getClass());
+    /**
+     * 예외를 만들지 않고 형식, 서명, 만료 여부를 확인합니다.
+     * 여기를 통과하지 못한 토큰은 jjwt 파서까지 가지 않습니다.
+     */
+    private boolean quickCheck(String token) {
 
-            DefaultClaims claims = (DefaultClaims) defaultJws.getBody();
+        if (token == null) {
+            return false;
+        }
 
-            log.info("------------------------------");
+        int firstDot = -1;
+        int secondDot = -1;
+
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return false;
+                }
+            } else if (!isBase64Url(c)) {
+                return false;
+            }
+        }
 
-            contentValue = claims.getSubject();
+        // header.payload.signature 모두 비어있지 않아야 합니다.
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == token.length() - 1) {
+            return false;
+        }
 
-        } catch(Exception e) {
-            e.printStackTrace();
-            log.error(e.getMessage());
-            contentValue = null;
+        if ((token.length() - secondDot - 1) % 4 == 1 || (secondDot - firstDot - 1) % 4 == 1) {
+            return false;
         }
-        return contentValue;
+
+        Mac mac = hmac.get();
+        mac.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+        byte[] expected = mac.doFinal();
+        byte[] actual = Base64.getUrlDecoder().decode(token.substring(secondDot + 1));
+
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return false;
+        }
+
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot));
+        long exp = readNumber(payload, EXP_FIELD);
+
+        return exp < 0 || exp * 1000 > System.currentTimeMillis();
     }
 
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
 
+    // 서명이 확인된 payload에서 숫자 값을 읽습니다. 없으면 -1
+    private static long readNumber(byte[] json, byte[] field) {
+
+        outer:
+        for (int i = 0; i <= json.length - field.length; i++) {
+            for (int j = 0; j < field.length; j++) {
+                if (json[i + j] != field[j]) {
+                    continue outer;
+                }
+            }
+
+            long value = 0;
+            int k = i + field.length;
+            boolean found = false;
+
+            while (k < json.length && json[k] >= '0' && json[k] <= '9') {
+                value = value * 10 + (json[k] - '0');
+                found = true;
+                k++;
+            }
+            return found ? value : -1;
+        }
+        return -1;
+    }
 
 }
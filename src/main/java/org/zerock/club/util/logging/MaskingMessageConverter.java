@@ -0,0 +1,44 @@
+package org.zerock.club.util.logging;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.regex.Pattern;
+
+/**
+ * 로그 메시지에 포함된 JWT와 Bearer 토큰을 가리는 컨버터
+ *
+ * logback-spring.xml에서 conversionRule로 등록하고 %msg 대신 %maskedMsg를 사용합니다.
+ * 대부분의 메시지에는 토큰이 없으므로 'eyJ'(JWT 헤더의 시작)나 'Bearer '가 있을 때만 정규식을 실행합니다.
+ */
+public class MaskingMessageConverter extends MessageConverter {
+
+    private static final Pattern JWT = Pattern.compile("eyJ[\\w-]*\\.[\\w-]*\\.[\\w-]*");
+
+    private static final Pattern BEARER = Pattern.compile("(Bearer\\s+)\\S+");
+
+    private static final String MASK = "[REDACTED]";
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return mask(super.convert(event));
+    }
+
+    public static String mask(String message) {
+
+        if (message == null) {
+            return null;
+        }
+
+        if (message.contains("eyJ")) {
+            message = JWT.matcher(message).replaceAll(MASK);
+        }
+
+        if (message.contains("Bearer ")) {
+            message = BEARER.matcher(message).replaceAll("$1" + MASK);
+        }
+
+        return message;
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.zerock.club.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청마다 반복되는 로그를 로거별로 N건 중 1건만 남기는 필터
+ *
+ * logback-spring.xml에서 대상 로거(접두사)와 비율을 지정합니다.
+ * <pre>
+ * &lt;turboFilter class="org.zerock.club.util.logging.SamplingTurboFilter"&gt;
+ *     &lt;logger&gt;org.zerock.club.controller&lt;/logger&gt;
+ *     &lt;rate&gt;100&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ * WARN 이상의 로그와 대상이 아닌 로거의 로그는 그대로 통과시킵니다(NEUTRAL).
+ * 레벨 때문에 어차피 출력되지 않을 로그는 카운트하지 않습니다.
+ *
+ * Lombok @Log4j2 로거는 log4j-to-slf4j를 거치므로 로그 한 건에 TurboFilter가 두 번 호출됩니다.
+ * 먼저 isInfoEnabled(marker)로 확인할 때(format, params, t가 모두 null), 그 다음 실제로 로그를 남길 때입니다.
+ * 확인하는 호출은 카운트하지 않고 통과시키고, 실제로 남기는 호출만 카운트합니다.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggers = new ArrayList<>();
+
+    private int rate = 100;
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public void addLogger(String logger) {
+        loggers.add(logger);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+
+        // logger.isEnabledFor()는 다시 TurboFilter를 호출하므로 유효 레벨을 직접 비교합니다.
+        if (rate <= 1 || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        // isXxxEnabled() 확인 호출은 이어지는 실제 호출에서 카운트합니다.
+        if (format == null && params == null && t == null) {
+            return FilterReply.NEUTRAL;
+        }
+
+        String name = logger.getName();
+
+        if (!isTarget(name)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long count = counters.computeIfAbsent(name, k -> new AtomicLong()).getAndIncrement();
+
+        return count % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean isTarget(String name) {
+        for (String prefix : loggers) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
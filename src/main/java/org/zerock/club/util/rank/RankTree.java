@@ -0,0 +1,289 @@
+package org.zerock.club.util.rank;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 점수 순위표 (order-statistic treap)
+ *
+ * 회원(member)마다 점수 하나를 보관하고 점수가 높은 순서(같으면 회원 아이디 순서)로 정렬합니다.
+ * 노드마다 서브트리의 크기를 가지고 있으므로 순위 조회, 순위 구간 조회, 점수 변경이 모두 O(log n)(구간은 + 결과 수) 입니다.
+ * 순위는 0부터 시작하고 점수가 같아도 서로 다른 순위입니다.
+ *
+ * 트리의 모양은 무작위 우선순위로 정하므로 입력 순서와 관계없이 기대 높이가 O(log n) 입니다.
+ *
+ * 스레드에 안전하지 않습니다. 여러 스레드에서 사용할 때는 호출하는 쪽에서 락을 사용합니다.
+ */
+public class RankTree {
+
+    private final Map<String, Long> scores = new HashMap<>();
+
+    private final Random random = new Random();
+
+    private Node root;
+
+    /**
+     * 회원의 점수를 정합니다. 이미 있으면 교체합니다.
+     */
+    public void put(String member, long score) {
+
+        remove(member);
+
+        scores.put(member, score);
+        root = insert(root, new Node(member, score, random.nextInt()));
+    }
+
+    /**
+     * 이미 있는 회원의 점수에 delta를 더합니다. 없는 회원이면 false
+     */
+    public boolean add(String member, long delta) {
+
+        Long score = scores.get(member);
+
+        if (score == null) {
+            return false;
+        }
+
+        if (delta != 0) {
+            put(member, score + delta);
+        }
+        return true;
+    }
+
+    public boolean remove(String member) {
+
+        Long score = scores.remove(member);
+
+        if (score == null) {
+            return false;
+        }
+
+        root = remove(root, member, score);
+        return true;
+    }
+
+    // 없는 회원이면 null
+    public Long score(String member) {
+        return scores.get(member);
+    }
+
+    /**
+     * 회원보다 앞에 있는 회원 수 (0부터 시작하는 순위), 없는 회원이면 -1
+     */
+    public int rank(String member) {
+
+        Long score = scores.get(member);
+
+        if (score == null) {
+            return -1;
+        }
+
+        int rank = 0;
+        Node node = root;
+
+        while (node != null) {
+            int c = compare(member, score, node);
+
+            if (c < 0) {
+                node = node.left;
+            } else if (c > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 순위 from부터 count명 (순위 순서)
+     */
+    public List<Entry> range(int from, int count) {
+
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+
+        if (from >= 0 && count > 0) {
+            collect(root, 0, from, from + count, entries);
+        }
+        return entries;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    // node 서브트리에서 순위가 [from, to)인 회원을 순서대로 추가합니다. offset은 서브트리 첫 회원의 순위
+    private static void collect(Node node, int offset, int from, int to, List<Entry> entries) {
+
+        if (node == null || to <= offset || offset + node.size <= from) {
+            return;
+        }
+
+        collect(node.left, offset, from, to, entries);
+
+        int rank = offset + size(node.left);
+
+        if (rank >= from && rank < to) {
+            entries.add(new Entry(node.member, node.score, rank));
+        }
+
+        collect(node.right, rank + 1, from, to, entries);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+
+        if (node == null) {
+            return inserted;
+        }
+
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.member, inserted.score);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            return inserted.update();
+        }
+
+        if (compare(inserted.member, inserted.score, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return node.update();
+    }
+
+    private static Node remove(Node node, String member, long score) {
+
+        if (node == null) {
+            return null;
+        }
+
+        int c = compare(member, score, node);
+
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+
+        if (c < 0) {
+            node.left = remove(node.left, member, score);
+        } else {
+            node.right = remove(node.right, member, score);
+        }
+        return node.update();
+    }
+
+    // (member, score)보다 앞인 노드들과 나머지로 나눕니다.
+    private static Node[] split(Node node, String member, long score) {
+
+        if (node == null) {
+            return new Node[2];
+        }
+
+        if (compare(member, score, node) > 0) {
+            Node[] parts = split(node.right, member, score);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+
+        Node[] parts = split(node.left, member, score);
+        node.left = parts[1];
+        parts[1] = node.update();
+        return parts;
+    }
+
+    // left의 모든 노드가 right의 모든 노드보다 앞이어야 합니다.
+    private static Node merge(Node left, Node right) {
+
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    // (member, score)가 node보다 앞이면 음수 (점수가 높은 순서, 같으면 아이디 순서)
+    private static int compare(String member, long score, Node node) {
+
+        int c = Long.compare(node.score, score);
+
+        return c != 0 ? c : member.compareTo(node.member);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    public static final class Entry {
+
+        private final String member;
+
+        private final long score;
+
+        private final int rank;
+
+        Entry(String member, long score, int rank) {
+            this.member = member;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public String getMember() {
+            return member;
+        }
+
+        public long getScore() {
+            return score;
+        }
+
+        // 0부터 시작
+        public int getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return rank + ":" + member + "=" + score;
+        }
+    }
+
+    private static final class Node {
+
+        final String member;
+
+        final long score;
+
+        final int priority;
+
+        // 이 노드를 포함한 서브트리의 노드 수
+        int size = 1;
+
+        Node left;
+
+        Node right;
+
+        Node(String member, long score, int priority) {
+            this.member = member;
+            this.score = score;
+            this.priority = priority;
+        }
+
+        Node update() {
+            size = 1 + RankTree.size(left) + RankTree.size(right);
+            return this;
+        }
+    }
+
+}
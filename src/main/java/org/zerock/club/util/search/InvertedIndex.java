@@ -0,0 +1,496 @@
+package org.zerock.club.util.search;
+
+import java.util.*;
+
+/**
+ * 메모리 역색인 (BM25 순위)
+ *
+ * 문서(노트)는 추가된 순서대로 순번(ordinal)을 받고, 단어마다 그 단어가 나온 문서의 순번과 빈도(tf)를 순번 순서로 보관합니다.
+ * 순번이 항상 증가하므로 포스팅 목록은 추가만 해도 정렬된 상태이고, 검색은 여러 포스팅 목록을 한번에 병합하면서 점수를 계산합니다.
+ *
+ * 수정은 이전 순번을 삭제 표시(tombstone)하고 새 순번으로 다시 추가합니다.
+ * 삭제 표시가 살아있는 문서의 COMPACT_RATIO를 넘으면 포스팅 목록에서 삭제된 순번을 제거하고 순번을 다시 매깁니다.
+ *
+ * 제목의 단어는 TITLE_WEIGHT번 나온 것으로 계산합니다.
+ * 문서 빈도(df)에는 아직 정리되지 않은 삭제 문서가 포함되므로 정확한 BM25가 아닌 근사값입니다.
+ *
+ * 스레드에 안전하지 않습니다. 여러 스레드에서 사용할 때는 호출하는 쪽에서 락을 사용합니다.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final float COMPACT_RATIO = 0.25f;
+
+    private static final int COMPACT_MIN_TOMBSTONES = 1024;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // 노트 번호 -> 순번
+    private final LongIntMap ordinals = new LongIntMap();
+
+    // 작성자 이메일 -> 작성자 번호 (writers[]에 저장)
+    private final Map<String, Integer> writerIds = new HashMap<>();
+
+    // 순번별 노트 번호, 작성자 번호, 길이(단어 수)
+    private long[] nums = new long[1024];
+
+    private int[] writers = new int[1024];
+
+    private int[] lengths = new int[1024];
+
+    private final BitSet deleted = new BitSet();
+
+    private int docCount;
+
+    private int liveCount;
+
+    private long liveLength;
+
+    /**
+     * 노트를 색인합니다. 같은 번호가 이미 있으면 교체합니다.
+     */
+    public void add(long num, String writer, String title, String content) {
+
+        remove(num);
+
+        add(num, writerIds.computeIfAbsent(writer, k -> writerIds.size()), title, content);
+    }
+
+    /**
+     * 이미 색인된 노트의 제목/내용만 바꿉니다. 작성자는 그대로 유지하고, 색인되지 않은 노트면 false
+     */
+    public boolean update(long num, String title, String content) {
+
+        int ord = ordinals.get(num);
+
+        if (ord < 0) {
+            return false;
+        }
+
+        int writer = writers[ord];
+
+        remove(num);
+        add(num, writer, title, content);
+
+        return true;
+    }
+
+    private void add(long num, int writer, String title, String content) {
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        int length = count(frequencies, title, TITLE_WEIGHT) + count(frequencies, content, 1);
+
+        int ord = docCount++;
+
+        if (ord == nums.length) {
+            int capacity = nums.length * 2;
+            nums = Arrays.copyOf(nums, capacity);
+            writers = Arrays.copyOf(writers, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        nums[ord] = num;
+        writers[ord] = writer;
+        lengths[ord] = length;
+        ordinals.put(num, ord);
+
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(ord, entry.getValue()[0]);
+        }
+
+        liveCount++;
+        liveLength += length;
+    }
+
+    public boolean remove(long num) {
+
+        int ord = ordinals.remove(num);
+
+        if (ord < 0) {
+            return false;
+        }
+
+        deleted.set(ord);
+        liveCount--;
+        liveLength -= lengths[ord];
+
+        int tombstones = docCount - liveCount;
+
+        if (tombstones >= COMPACT_MIN_TOMBSTONES && tombstones > liveCount * COMPACT_RATIO) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * 검색어의 단어 중 하나라도 포함된 노트를 점수가 높은 순서로 최대 limit개 반환합니다.
+     * writer가 null이 아니면 그 작성자의 노트만 반환합니다. 점수가 같으면 나중에 색인된 노트가 먼저입니다.
+     */
+    public long[] search(String query, String writer, int limit) {
+
+        int writerId = -1;
+
+        if (writer != null) {
+            Integer id = writerIds.get(writer);
+            if (id == null) {
+                return new long[0];
+            }
+            writerId = id;
+        }
+
+        List<Postings> lists = new ArrayList<>();
+
+        for (String term : new LinkedHashSet<>(Tokenizer.tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+
+        if (lists.isEmpty() || liveCount == 0 || limit <= 0) {
+            return new long[0];
+        }
+
+        int n = lists.size();
+        float[] idf = new float[n];
+        int[] positions = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            int df = lists.get(i).size;
+            idf[i] = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        }
+
+        float averageLength = Math.max(1f, (float) liveLength / liveCount);
+
+        TopHits top = new TopHits(limit);
+
+        while (true) {
+
+            int ord = Integer.MAX_VALUE;
+
+            for (int i = 0; i < n; i++) {
+                Postings list = lists.get(i);
+                if (positions[i] < list.size && list.ords[positions[i]] < ord) {
+                    ord = list.ords[positions[i]];
+                }
+            }
+
+            if (ord == Integer.MAX_VALUE) {
+                break;
+            }
+
+            boolean skip = deleted.get(ord) || (writerId >= 0 && writers[ord] != writerId);
+            float norm = K1 * (1 - B + B * lengths[ord] / averageLength);
+            float score = 0;
+
+            for (int i = 0; i < n; i++) {
+                Postings list = lists.get(i);
+                if (positions[i] < list.size && list.ords[positions[i]] == ord) {
+                    if (!skip) {
+                        int tf = list.tfs[positions[i]];
+                        score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                    }
+                    positions[i]++;
+                }
+            }
+
+            if (!skip) {
+                top.offer(ord, score);
+            }
+        }
+
+        int[] ords = top.sorted();
+        long[] result = new long[ords.length];
+
+        for (int i = 0; i < ords.length; i++) {
+            result[i] = nums[ords[i]];
+        }
+        return result;
+    }
+
+    public boolean contains(long num) {
+        return ordinals.get(num) >= 0;
+    }
+
+    // 색인된 노트 수
+    public int size() {
+        return liveCount;
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    // 아직 정리되지 않은 삭제 표시 수
+    public int tombstones() {
+        return docCount - liveCount;
+    }
+
+    /**
+     * 삭제된 순번을 포스팅 목록에서 제거하고 살아있는 문서의 순번을 0부터 다시 매깁니다.
+     * 순서는 그대로 유지되므로 포스팅 목록은 계속 정렬된 상태입니다.
+     */
+    public void compact() {
+
+        int[] remap = new int[docCount];
+        int next = 0;
+
+        for (int ord = 0; ord < docCount; ord++) {
+            if (deleted.get(ord)) {
+                remap[ord] = -1;
+                continue;
+            }
+            remap[ord] = next;
+            nums[next] = nums[ord];
+            writers[next] = writers[ord];
+            lengths[next] = lengths[ord];
+            ordinals.put(nums[next], next);
+            next++;
+        }
+
+        Iterator<Postings> iterator = postings.values().iterator();
+
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.remap(remap);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+
+        deleted.clear();
+        docCount = next;
+    }
+
+    private static int count(Map<String, int[]> frequencies, String text, int weight) {
+
+        List<String> tokens = Tokenizer.tokenize(text);
+
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, k -> new int[1])[0] += weight;
+        }
+        return tokens.size() * weight;
+    }
+
+    // 한 단어의 포스팅 목록 (순번 오름차순)
+    private static final class Postings {
+
+        private int[] ords = new int[4];
+
+        private int[] tfs = new int[4];
+
+        private int size;
+
+        void add(int ord, int tf) {
+            if (size == ords.length) {
+                ords = Arrays.copyOf(ords, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            ords[size] = ord;
+            tfs[size] = tf;
+            size++;
+        }
+
+        void remap(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int ord = remap[ords[i]];
+                if (ord >= 0) {
+                    ords[next] = ord;
+                    tfs[next] = tfs[i];
+                    next++;
+                }
+            }
+            size = next;
+
+            if (size < ords.length / 4) {
+                ords = Arrays.copyOf(ords, Math.max(4, size));
+                tfs = Arrays.copyOf(tfs, Math.max(4, size));
+            }
+        }
+    }
+
+    // 점수 상위 limit개를 보관하는 최소 힙
+    private static final class TopHits {
+
+        private final int[] ords;
+
+        private final float[] scores;
+
+        private int size;
+
+        TopHits(int limit) {
+            this.ords = new int[limit];
+            this.scores = new float[limit];
+        }
+
+        void offer(int ord, float score) {
+            if (size < ords.length) {
+                ords[size] = ord;
+                scores[size] = score;
+                up(size++);
+            } else if (less(ords[0], scores[0], ord, score)) {
+                ords[0] = ord;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        // 점수 내림차순
+        int[] sorted() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = ords[0];
+                ords[0] = ords[i];
+                scores[0] = scores[i];
+                size = i;
+                down(0);
+            }
+            return result;
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(ords[i], scores[i], ords[parent], scores[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int left = i * 2 + 1;
+                int right = left + 1;
+                int smallest = i;
+                if (left < size && less(ords[left], scores[left], ords[smallest], scores[smallest])) {
+                    smallest = left;
+                }
+                if (right < size && less(ords[right], scores[right], ords[smallest], scores[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int ord = ords[i];
+            ords[i] = ords[j];
+            ords[j] = ord;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+
+        private static boolean less(int ord1, float score1, int ord2, float score2) {
+            return score1 < score2 || (score1 == score2 && ord1 < ord2);
+        }
+    }
+
+    // long -> int 해시 맵 (선형 탐사, 값이 없으면 -1)
+    private static final class LongIntMap {
+
+        private long[] keys = new long[1024];
+
+        private int[] values = new int[1024];
+
+        private boolean[] used = new boolean[1024];
+
+        private int mask = 1023;
+
+        private int size;
+
+        int get(long key) {
+            for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int i = slot(key);
+            while (used[i]) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        int remove(long key) {
+            for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    int value = values[i];
+                    shiftBack(i);
+                    size--;
+                    return value;
+                }
+            }
+            return -1;
+        }
+
+        // 지운 자리 뒤의 엔트리 중 원래 위치가 지운 자리 이전인 것을 앞으로 당깁니다.
+        private void shiftBack(int gap) {
+            int i = gap;
+            while (true) {
+                i = (i + 1) & mask;
+                if (!used[i]) {
+                    break;
+                }
+                int home = slot(keys[i]);
+                boolean movable = i > gap ? (home <= gap || home > i) : (home <= gap && home > i);
+                if (movable) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            used[gap] = false;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            mask = keys.length - 1;
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.zerock.club.util.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색용 토크나이저
+ *
+ * 글자/숫자가 연속된 구간을 하나의 토큰으로 보고 소문자로 바꿉니다.
+ * 한글/한자/가나는 조사가 붙어도 찾을 수 있도록 단어 대신 두 글자씩 겹치는 바이그램으로 나눕니다.
+ * ("노트를" -> "노트", "트를") 한 글자 단어는 그대로 토큰이 됩니다.
+ *
+ * 색인과 검색어에 같은 토크나이저를 사용해야 합니다.
+ */
+public final class Tokenizer {
+
+    // 이보다 긴 토큰은 잘라냅니다. (URL, 해시 값 등)
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+
+        List<String> tokens = new ArrayList<>();
+
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (isCjk(c)) {
+                flushWord(word, tokens);
+                cjk.append(c);
+            } else if (Character.isLetterOrDigit(c)) {
+                flushCjk(cjk, tokens);
+                if (word.length() < MAX_TOKEN_LENGTH) {
+                    word.append(Character.toLowerCase(c));
+                }
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjk, tokens);
+            }
+        }
+
+        flushWord(word, tokens);
+        flushCjk(cjk, tokens);
+
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(StringBuilder cjk, List<String> tokens) {
+        if (cjk.length() == 1) {
+            tokens.add(cjk.toString());
+        }
+        for (int i = 0; i + 1 < cjk.length(); i++) {
+            tokens.add(cjk.substring(i, i + 2));
+        }
+        cjk.setLength(0);
+    }
+
+    private static boolean isCjk(char c) {
+        if (c < 0x1100) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.zerock.club.security.encoder.BoundedPasswordEncoder;
+import org.zerock.club.security.encoder.PasswordEncoderBusyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTests {
+
+    @Test
+    public void testMatches() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 8, 3000);
+
+        String enPw = encoder.encode("1111");
+
+        assertTrue(encoder.matches("1111", enPw));
+        assertFalse(encoder.matches("2222", enPw));
+
+        encoder.destroy();
+    }
+
+    @Test
+    public void testUpgradeEncoding() {
+        String weak = new BCryptPasswordEncoder(4).encode("1111");
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(10), 1, 1, 3000);
+
+        assertTrue(encoder.upgradeEncoding(weak));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("1111")));
+
+        encoder.destroy();
+    }
+
+    @Test
+    public void testRejectWhenQueueFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 작업 스레드를 붙잡아 두는 PasswordEncoder
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    started.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1, 3000);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        List<Future<Boolean>> pending = new ArrayList<>();
+
+        // 1개는 실행 중, 1개는 큐에서 대기
+        pending.add(callers.submit(() -> encoder.matches("1111", "1111")));
+        started.await();
+
+        pending.add(callers.submit(() -> encoder.matches("1111", "1111")));
+        while (encoder.getQueueSize() < 1) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        assertThrows(PasswordEncoderBusyException.class, () -> encoder.matches("1111", "1111"));
+        System.out.println("rejected in " + (System.nanoTime() - start) / 1000 + "us");
+
+        release.countDown();
+        for (Future<Boolean> future : pending) {
+            assertTrue(future.get());
+        }
+
+        callers.shutdown();
+        encoder.destroy();
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+import org.zerock.club.security.filter.CompiledPathMatcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledPathMatcherTests {
+
+    private static final String[] PATHS = {
+            "/", "/login", "/api/login", "/api/logout", "/api/loginx", "/notes", "/notes/", "/notes/all",
+            "/notes/1", "/notes/1/2", "/notesx/1", "/membership/", "/membership/all", "/css/style.css",
+            "/sample/all", "/favicon.ico", ""
+    };
+
+    @Test
+    public void testSameAsAntPathMatcher() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+        String[][] patternSets = {
+                {"/notes/**/*"},
+                {"/api/login"},
+                {"/api/**", "/notes/**", "/membership/**"},
+                {"/notes/*", "/sample/{name}"}
+        };
+
+        for (String[] patterns : patternSets) {
+            CompiledPathMatcher matcher = new CompiledPathMatcher(patterns);
+
+            for (String path : PATHS) {
+                boolean expected = false;
+                for (String pattern : patterns) {
+                    expected |= antPathMatcher.match(pattern, path);
+                }
+                assertEquals(expected, matcher.matches(path), matcher + " " + path);
+            }
+        }
+    }
+
+    @Test
+    public void testContextPath() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher("/api/login", "/notes/**");
+
+        MockHttpServletRequest login = new MockHttpServletRequest("POST", "/club/api/login");
+        login.setContextPath("/club");
+        assertTrue(matcher.matches(login));
+
+        MockHttpServletRequest note = new MockHttpServletRequest("GET", "/club/notes/1");
+        note.setContextPath("/club");
+        assertTrue(matcher.matches(note));
+
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/club/sample/all");
+        other.setContextPath("/club");
+        assertFalse(matcher.matches(other));
+
+        assertTrue(matcher.matches(new MockHttpServletRequest("POST", "/api/login")));
+    }
+
+    @Test
+    public void testNull() {
+        assertFalse(new CompiledPathMatcher("/notes/**").matches(null));
+    }
+
+}
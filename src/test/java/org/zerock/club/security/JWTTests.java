@@ -1,9 +1,15 @@
 package org.zerock.club.security;
 
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.zerock.club.util.JWTUtil;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class JWTTests {
 
     private JWTUtil jwtUtil;
@@ -36,4 +42,28 @@ public class JWTTests {
         System.out.println(resultEmail);
     }
 
+    @Test
+    public void testClaims() throws Exception {
+        String str = jwtUtil.generateToken("user95@zerock.org", "사용자95", false,
+                Arrays.asList("ROLE_USER", "ROLE_MANAGER", "ROLE_ADMIN"));
+
+        Claims claims = jwtUtil.validateAndGetClaims(str);
+
+        System.out.println(claims);
+
+        assertEquals("user95@zerock.org", claims.getSubject());
+        assertEquals("사용자95", claims.get(JWTUtil.CLAIM_NAME));
+        assertEquals(false, claims.get(JWTUtil.CLAIM_SOCIAL));
+        assertEquals(3, ((List<?>) claims.get(JWTUtil.CLAIM_ROLES)).size());
+    }
+
+    @Test
+    public void testForged() throws Exception {
+        String str = jwtUtil.generateToken("user95@zerock.org");
+
+        assertNull(jwtUtil.validateAndExtract(str.substring(0, str.length() - 2) + "AA"));
+        assertNull(jwtUtil.validateAndExtract("not.a.token"));
+        assertNull(jwtUtil.validateAndExtract(""));
+    }
+
 }
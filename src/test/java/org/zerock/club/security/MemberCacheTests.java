@@ -0,0 +1,90 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zerock.club.entity.ClubMember;
+import org.zerock.club.entity.ClubMemberRole;
+import org.zerock.club.security.cache.MemberCache;
+import org.zerock.club.security.cache.MemberSnapshot;
+import org.zerock.club.security.dto.ClubAuthMemberDTO;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemberCacheTests {
+
+    private MemberCache memberCache;
+
+    private AtomicInteger loadCount;
+
+    @BeforeEach
+    public void testBefore(){
+        memberCache = new MemberCache(100, 600);
+        loadCount = new AtomicInteger();
+    }
+
+    private Optional<ClubMember> load(String email){
+        loadCount.incrementAndGet();
+
+        ClubMember clubMember = ClubMember.builder()
+                .email(email)
+                .name("사용자95")
+                .password("$2a$10$dummy")
+                .fromSocial(false)
+                .build();
+        clubMember.addMemberRole(ClubMemberRole.USER);
+        clubMember.addMemberRole(ClubMemberRole.ADMIN);
+
+        return Optional.of(clubMember);
+    }
+
+    @Test
+    public void testLoadOnce(){
+        String email = "user95@zerock.org";
+
+        MemberSnapshot first = memberCache.get(email, false, () -> load(email)).get();
+        MemberSnapshot second = memberCache.get(email, false, () -> load(email)).get();
+
+        System.out.println(first);
+
+        assertSame(first, second);
+        assertEquals(1, loadCount.get());
+        assertEquals(2, first.getAuthorities().size());
+        assertEquals(0.5, memberCache.stats().hitRate());
+    }
+
+    @Test
+    public void testInvalidate(){
+        String email = "user95@zerock.org";
+
+        memberCache.get(email, false, () -> load(email));
+        memberCache.invalidate(email);
+        memberCache.get(email, false, () -> load(email));
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testNotFoundNotCached(){
+        memberCache.get("none@zerock.org", false, Optional::empty);
+
+        assertTrue(memberCache.get("none@zerock.org", false, Optional::empty).isEmpty());
+        assertEquals(2, memberCache.stats().missCount());
+    }
+
+    @Test
+    public void testAuthMemberIsNewInstance(){
+        String email = "user95@zerock.org";
+
+        MemberSnapshot snapshot = memberCache.get(email, false, () -> load(email)).get();
+
+        ClubAuthMemberDTO authMember = snapshot.toAuthMember();
+        authMember.eraseCredentials();
+
+        assertNotNull(snapshot.toAuthMember().getPassword());
+        assertEquals("사용자95", authMember.getName());
+    }
+
+}
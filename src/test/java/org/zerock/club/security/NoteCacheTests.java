@@ -0,0 +1,128 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zerock.club.repository.NoteRepository;
+import org.zerock.club.security.cache.NoteCache;
+import org.zerock.club.security.dto.NoteDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NoteCacheTests {
+
+    private NoteRepository noteRepository;
+
+    private NoteCache noteCache;
+
+    private AtomicInteger loadCount;
+
+    @BeforeEach
+    public void testBefore(){
+        noteRepository = mock(NoteRepository.class);
+        loadCount = new AtomicInteger();
+
+        when(noteRepository.getNoteDTO(anyLong())).thenAnswer(invocation -> {
+            loadCount.incrementAndGet();
+            Long num = invocation.getArgument(0);
+            Thread.sleep(50);
+            return num > 0 ? Optional.of(note(num, "content" + loadCount.get())) : Optional.empty();
+        });
+
+        when(noteRepository.getNoteDTOs(anyCollection())).thenAnswer(invocation -> {
+            loadCount.incrementAndGet();
+            Collection<Long> nums = invocation.getArgument(0);
+            return nums.stream().filter(num -> num > 0)
+                    .map(num -> note(num, "bulk" + num)).collect(Collectors.toList());
+        });
+
+        noteCache = new NoteCache(noteRepository, 1024 * 1024, 600);
+    }
+
+    private NoteDTO note(Long num, String content){
+        return NoteDTO.builder().num(num).title("title" + num).content(content).writerEmail("user95@zerock.org").build();
+    }
+
+    @Test
+    public void testReadThrough() {
+        assertEquals("content1", noteCache.get(1L).getContent());
+        assertEquals("content1", noteCache.get(1L).getContent());
+
+        assertEquals(1, loadCount.get());
+
+        System.out.println(noteCache.stats());
+        assertEquals(1, noteCache.stats().hitCount());
+    }
+
+    @Test
+    public void testNotFoundNotCached() {
+        assertNull(noteCache.get(-1L));
+        assertNull(noteCache.get(-1L));
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        assertEquals("content1", noteCache.get(1L).getContent());
+
+        noteCache.invalidate(1L);
+
+        assertEquals("content2", noteCache.get(1L).getContent());
+    }
+
+    @Test
+    public void testConcurrentMissLoadsOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<NoteDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return noteCache.get(7L);
+            }));
+        }
+        start.countDown();
+
+        for (Future<NoteDTO> future : futures) {
+            assertEquals(7L, future.get().getNum());
+        }
+        executor.shutdown();
+
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testGetAllLoadsMissesAtOnce() {
+        assertEquals("content1", noteCache.get(1L).getContent());
+
+        Map<Long, NoteDTO> notes = noteCache.getAll(List.of(1L, 2L, 3L, -4L));
+
+        // 1번은 캐시에서, 2번과 3번은 조회 한 번으로, 없는 노트는 결과에 없습니다.
+        assertEquals(2, loadCount.get());
+        assertEquals("content1", notes.get(1L).getContent());
+        assertEquals("bulk2", notes.get(2L).getContent());
+        assertEquals("bulk3", notes.get(3L).getContent());
+        assertFalse(notes.containsKey(-4L));
+        verify(noteRepository, never()).getNoteDTO(2L);
+
+        // 한번에 조회한 노트는 캐시에 넣지 않으므로 수정 직후의 invalidate와 엇갈려 이전 값이 남지 않습니다.
+        assertNull(noteCache.getIfPresent(2L));
+        assertNull(noteCache.getIfPresent(3L));
+        assertEquals("content3", noteCache.get(3L).getContent());
+        assertEquals(3, loadCount.get());
+    }
+
+}
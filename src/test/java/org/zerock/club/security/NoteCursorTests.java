@@ -0,0 +1,31 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.Test;
+import org.zerock.club.security.dto.NoteCursor;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteCursorTests {
+
+    @Test
+    public void testEncodeDecode() {
+        LocalDateTime modDate = LocalDateTime.of(2021, 3, 1, 10, 20, 30, 123456000);
+
+        String cursor = new NoteCursor(modDate, 95L).encode();
+        System.out.println(cursor);
+
+        NoteCursor decoded = NoteCursor.decode(cursor);
+
+        assertEquals(modDate, decoded.getModDate());
+        assertEquals(95L, decoded.getNum());
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> NoteCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> NoteCursor.decode("MjAyMS0wMy0wMQ"));
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.zerock.club.entity.MembershipPK;
+import org.zerock.club.repository.PointLedgerRepository;
+import org.zerock.club.security.cache.MembershipCache;
+import org.zerock.club.security.cache.PointAccumulator;
+import org.zerock.club.security.cache.PointLeaderboard;
+import org.zerock.club.security.dto.PointEventDTO;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class PointAccumulatorTests {
+
+    private PointLedgerRepository pointLedgerRepository;
+
+    private AtomicLong appended;
+
+    @BeforeEach
+    public void testBefore(){
+        pointLedgerRepository = mock(PointLedgerRepository.class);
+        appended = new AtomicLong();
+
+        doAnswer(invocation -> {
+            List<PointEventDTO> events = invocation.getArgument(0);
+            events.forEach(event -> appended.addAndGet(event.getPoint()));
+            return null;
+        }).when(pointLedgerRepository).appendAll(anyList());
+    }
+
+    @Test
+    public void testFlush() {
+        PointAccumulator accumulator = new PointAccumulator(pointLedgerRepository, mock(MembershipCache.class),
+                mock(PointLeaderboard.class), mock(PlatformTransactionManager.class), 500);
+
+        accumulator.add("user1", "m1", 10);
+        accumulator.add("user1", "m1", 5);
+        accumulator.add("user2", "m1", 1);
+        accumulator.flush();
+
+        assertEquals(16, appended.get());
+
+        // 적립이 없으면 IDLE_FLUSHES 이후에 맵에서 뺍니다.
+        accumulator.flush();
+        accumulator.flush();
+        assertEquals(0, accumulator.size());
+        assertEquals(16, appended.get());
+    }
+
+    @Test
+    public void testEvictedBetweenLookupAndAdd() {
+        AtomicBoolean stall = new AtomicBoolean();
+
+        PointAccumulator accumulator = new PointAccumulator(pointLedgerRepository, mock(MembershipCache.class),
+                mock(PointLeaderboard.class), mock(PlatformTransactionManager.class), 500) {
+            @Override
+            protected void afterLookup(MembershipPK key) {
+                // 항목을 찾은 다음 멈춘 사이에 flush()가 여러 번 실행되어 항목을 닫고 맵에서 뺍니다.
+                if (stall.getAndSet(false)) {
+                    flush();
+                    flush();
+                    flush();
+                }
+            }
+        };
+
+        accumulator.add("user1", "m1", 1);
+        accumulator.flush();
+        assertEquals(1, appended.get());
+
+        stall.set(true);
+        accumulator.add("user1", "m1", 5);
+
+        // 닫힌 항목에 더하지 않고 새 항목에 더했으므로 다음 flush()에서 저장됩니다.
+        assertEquals(1, accumulator.size());
+        accumulator.flush();
+        assertEquals(6, appended.get());
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zerock.club.repository.RevokedTokenRepository;
+import org.zerock.club.security.cache.TokenRevocationList;
+import org.zerock.club.util.BloomFilter;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TokenRevocationListTests {
+
+    private RevokedTokenRepository repository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    public void testBefore(){
+        repository = mock(RevokedTokenRepository.class);
+        revocationList = new TokenRevocationList(repository, 1000, 0.001);
+    }
+
+    @Test
+    public void testBloomFilter() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        // 추가된 값은 항상 true
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+
+        int falsePositive = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositive++;
+            }
+        }
+
+        System.out.println("bits: " + filter.bitSize() + ", hashes: " + filter.hashCount() + ", false positive: " + falsePositive);
+        assertTrue(falsePositive < 2_000);
+    }
+
+    @Test
+    public void testRevoke() {
+        String jti = UUID.randomUUID().toString();
+
+        assertFalse(revocationList.isRevoked(jti));
+        assertFalse(revocationList.isRevoked(null));
+
+        revocationList.revoke(jti, System.currentTimeMillis() + 60_000);
+
+        assertTrue(revocationList.isRevoked(jti));
+        assertFalse(revocationList.isRevoked(UUID.randomUUID().toString()));
+        verify(repository).save(any());
+    }
+
+    @Test
+    public void testPurgeExpired() throws Exception {
+        String jti = UUID.randomUUID().toString();
+
+        revocationList.revoke(jti, System.currentTimeMillis() + 100);
+        assertTrue(revocationList.isRevoked(jti));
+
+        Thread.sleep(200);
+
+        // 만료된 jti는 purge() 전에도 폐기된 것으로 보지 않습니다.
+        assertFalse(revocationList.isRevoked(jti));
+
+        revocationList.purge();
+
+        assertEquals(0, revocationList.size());
+        verify(repository).deleteExpired(any());
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.zerock.club.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zerock.club.security.cache.VerifiedToken;
+import org.zerock.club.security.cache.VerifiedTokenCache;
+import org.zerock.club.util.JWTUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTests {
+
+    private JWTUtil jwtUtil;
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    public void testBefore(){
+        jwtUtil = new JWTUtil();
+        cache = new VerifiedTokenCache(100);
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        String token = jwtUtil.generateToken("user95@zerock.org");
+
+        assertNull(cache.get(token));
+
+        cache.put(token, new VerifiedToken("user95@zerock.org", null, System.currentTimeMillis() + 60_000, null));
+
+        assertEquals("user95@zerock.org", cache.get(token).getSubject());
+
+        System.out.println(cache.stats());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    public void testExpiredTokenNotCached() throws Exception {
+        String token = jwtUtil.generateToken("user95@zerock.org");
+
+        cache.put(token, new VerifiedToken("user95@zerock.org", null, System.currentTimeMillis() - 1, null));
+
+        assertNull(cache.get(token));
+    }
+
+    @Test
+    public void testEntryExpiresAtExp() throws Exception {
+        String token = jwtUtil.generateToken("user95@zerock.org");
+
+        cache.put(token, new VerifiedToken("user95@zerock.org", null, System.currentTimeMillis() + 200, null));
+        assertNotNull(cache.get(token));
+
+        Thread.sleep(300);
+
+        assertNull(cache.get(token));
+    }
+
+}
@@ -3,11 +3,35 @@ package org.zerock.club.service;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.zerock.club.entity.Membership;
+import org.zerock.club.entity.PointEventType;
+import org.zerock.club.repository.PointLedgerRepository;
+import org.zerock.club.repository.PointSnapshotJob;
+import org.zerock.club.security.cache.PointAccumulator;
+import org.zerock.club.security.cache.PointLeaderboard;
+import org.zerock.club.security.dto.LeaderboardPageDTO;
 import org.zerock.club.security.dto.MembershipDTO;
+import org.zerock.club.security.dto.PointAccrualDTO;
+import org.zerock.club.security.dto.PointAccrualResultDTO;
+import org.zerock.club.security.dto.PointEventDTO;
+import org.zerock.club.security.dto.PointHistoryPageDTO;
 import org.zerock.club.security.service.MembershipService;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
 public class MembershipServiceTests {
@@ -15,6 +39,21 @@ public class MembershipServiceTests {
     @Autowired
     MembershipService membershipService;
 
+    @Autowired
+    PointAccumulator pointAccumulator;
+
+    @Autowired
+    PointSnapshotJob pointSnapshotJob;
+
+    @Autowired
+    PointLeaderboard pointLeaderboard;
+
+    @Autowired
+    PointLedgerRepository pointLedgerRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     public void testGet(){
 
@@ -35,6 +74,39 @@ public class MembershipServiceTests {
         }
     }
 
+    @Test
+    public void testGetAllCached(){
+
+        String membershipId = "cached" + System.currentTimeMillis();
+
+        membershipService.getAll("test1");
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("cached").membershipStatus(true).build());
+
+        // 등록하면 회원의 목록이 캐시에서 제거됩니다.
+        assertEquals(membershipId, membershipService.get("test1", membershipId).getMembershipId());
+
+        membershipService.addPoint("test1", membershipId, 1000);
+
+        assertEquals(10, membershipService.get("test1", membershipId).getPoint());
+        assertSame(membershipService.getAll("test1"), membershipService.getAll("test1"));
+
+        membershipService.remove("test1", membershipId);
+
+        assertNull(membershipService.get("test1", membershipId));
+    }
+
+    @Test
+    public void testGetAllFields(){
+        List<Map<String, Object>> memberships = membershipService.getAll("test1", "membershipId,point");
+
+        System.out.println("-----------------------------------------");
+        for (Map<String, Object> membership : memberships){
+            System.out.println(membership);
+        }
+    }
+
     @Test
     public void testRegister(){
         MembershipDTO membershipDTO = MembershipDTO.builder()
@@ -48,7 +120,246 @@ public class MembershipServiceTests {
 
     @Test
     public void testAddPoint(){
-        membershipService.addPoint("test1","spc", 100000);
+        OptionalLong point = membershipService.addPoint("test1","spc", 100000);
+
+        System.out.println("-----------------------------------------");
+        System.out.println(point);
+    }
+
+    // 64개의 스레드가 같은 멤버십에 동시에 적립해도 적립이 사라지지 않아야 합니다.
+    @Test
+    public void testAddPointConcurrent() throws Exception {
+
+        String membershipId = "concurrent" + System.currentTimeMillis();
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("concurrent").membershipStatus(true).build());
+
+        int threads = 64;
+        int times = 100;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < times; j++) {
+                    // 절반은 바로 저장, 절반은 모아서 저장
+                    if (thread % 2 == 0) {
+                        membershipService.addPoint("test1", membershipId, 1000);
+                    } else {
+                        membershipService.addPointDeferred("test1", membershipId, 1000);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        pointAccumulator.flush();
+
+        System.out.println("-----------------------------------------");
+        System.out.println(membershipService.getAll("test1"));
+
+        assertEquals(threads * times * 10, membershipService.addPoint("test1", membershipId, 0).getAsLong());
+
+        membershipService.remove("test1", membershipId);
+    }
+
+    @Test
+    public void testAddPoints(){
+
+        String membershipId = "batch" + System.currentTimeMillis();
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("batch").membershipStatus(true).build());
+
+        List<PointAccrualDTO> accruals = new ArrayList<>();
+
+        for (int i = 0; i < 3000; i++) {
+            accruals.add(PointAccrualDTO.builder().userId("test1").membershipId(membershipId).money(1000).build());
+        }
+        accruals.add(PointAccrualDTO.builder().userId("test1").membershipId("nocard").money(1000).build());
+        accruals.add(PointAccrualDTO.builder().userId("test1").membershipId(membershipId).money(-1000).build());
+
+        List<PointAccrualResultDTO> results = membershipService.addPoints(accruals);
+
+        assertEquals(accruals.size(), results.size());
+        assertEquals(PointAccrualResultDTO.Status.ACCRUED, results.get(0).getStatus());
+        assertEquals(PointAccrualResultDTO.Status.NOT_FOUND, results.get(3000).getStatus());
+        assertEquals(PointAccrualResultDTO.Status.INVALID, results.get(3001).getStatus());
+
+        // 같은 멤버십의 3000행은 원장 한 행으로 합쳐집니다.
+        assertEquals(30000, membershipService.getBalance("test1", membershipId).getAsLong());
+        assertEquals(1, membershipService.getHistory("test1", membershipId, null, 10).getEvents().size());
+
+        membershipService.remove("test1", membershipId);
+    }
+
+    @Test
+    public void testGetLeaderboard() throws Exception {
+
+        // 시작할 때 백그라운드에서 순위표를 만듭니다.
+        while (!pointLeaderboard.isReady()) {
+            Thread.sleep(100);
+        }
+
+        String membershipId = "rank" + System.currentTimeMillis();
+
+        for (int i = 1; i <= 5; i++) {
+            membershipService.register(MembershipDTO.builder()
+                    .userId("test" + i).membershipId(membershipId).membershipName("rank").membershipStatus(true).point(i * 100).build());
+        }
+
+        membershipService.addPoint("test1", membershipId, 100000);
+
+        LeaderboardPageDTO top = membershipService.getLeaderboard(membershipId, null, 0, 2);
+
+        System.out.println(top);
+
+        assertEquals(5, top.getTotal());
+        assertEquals("test1", top.getEntries().get(0).getUserId());
+        assertEquals(1100, top.getEntries().get(0).getPoint());
+        assertEquals("test5", top.getEntries().get(1).getUserId());
+
+        LeaderboardPageDTO around = membershipService.getLeaderboard(membershipId, "test2", 0, 1);
+        assertEquals(5, around.getEntries().get(0).getRank());
+        assertNull(membershipService.getLeaderboard(membershipId, "nobody", 0, 1));
+
+        for (int i = 1; i <= 5; i++) {
+            membershipService.remove("test" + i, membershipId);
+        }
+        assertEquals(0, membershipService.getLeaderboard(membershipId, null, 0, 10).getTotal());
+    }
+
+    @Test
+    public void testRecordPointsAndHistory(){
+
+        String membershipId = "ledger" + System.currentTimeMillis();
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("ledger").membershipStatus(true).point(100).build());
+
+        List<PointEventDTO> events = List.of(
+                PointEventDTO.builder().userId("test1").membershipId(membershipId).type(PointEventType.ACCRUAL).point(50).build(),
+                PointEventDTO.builder().userId("test1").membershipId(membershipId).type(PointEventType.REDEMPTION).point(-30).build(),
+                PointEventDTO.builder().userId("test1").membershipId(membershipId).type(PointEventType.EXPIRY).point(-20).build());
+
+        assertEquals(3, membershipService.recordPoints(events));
+        assertEquals(100, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        // 적립인데 음수
+        assertThrows(IllegalArgumentException.class, () -> membershipService.recordPoints(List.of(
+                PointEventDTO.builder().userId("test1").membershipId(membershipId).type(PointEventType.ACCRUAL).point(-1).build())));
+
+        // 스냅샷에 반영해도 잔액은 같습니다.
+        pointSnapshotJob.fold();
+        assertEquals(100, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        PointHistoryPageDTO first = membershipService.getHistory("test1", membershipId, null, 2);
+        System.out.println(first);
+        assertEquals(PointEventType.EXPIRY, first.getEvents().get(0).getType());
+        assertEquals(2, first.getEvents().size());
+
+        PointHistoryPageDTO second = membershipService.getHistory("test1", membershipId, first.getNextCursor(), 2);
+        assertEquals(1, second.getEvents().size());
+        assertNull(second.getNextCursor());
+
+        membershipService.addPoint("test1", membershipId, 1000);
+        membershipService.remove("test1", membershipId);
+
+        // 다시 등록하면 반영하지 않은 이전 원장도 잔액에 포함되지 않습니다.
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("ledger").membershipStatus(true).point(7).build());
+        assertEquals(7, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        pointSnapshotJob.fold();
+        assertEquals(7, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        membershipService.remove("test1", membershipId);
+    }
+
+    @Test
+    public void testFoldOutOfOrderCommit() throws Exception {
+
+        String membershipId = "fold" + System.currentTimeMillis();
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("fold").membershipStatus(true).point(0).build());
+
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // 원장 번호를 먼저 받고 나중에 커밋하는 트랜잭션
+        Future<?> slow = executor.submit(() -> {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                pointLedgerRepository.appendAll(List.of(PointEventDTO.builder()
+                        .userId("test1").membershipId(membershipId).type(PointEventType.ACCRUAL).point(100).build()));
+                appended.countDown();
+
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            return null;
+        });
+
+        appended.await();
+
+        membershipService.recordPoints(List.of(PointEventDTO.builder()
+                .userId("test1").membershipId(membershipId).type(PointEventType.ACCRUAL).point(10).build()));
+
+        // 번호가 더 큰 원장을 반영한 다음에 번호가 작은 원장이 커밋됩니다.
+        pointSnapshotJob.fold();
+        pointSnapshotJob.fold();
+
+        commit.countDown();
+        slow.get();
+        executor.shutdown();
+
+        assertEquals(110, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        pointSnapshotJob.fold();
+        assertEquals(110, membershipService.getBalance("test1", membershipId).getAsLong());
+
+        membershipService.remove("test1", membershipId);
+    }
+
+    @Test
+    public void testBalanceBeyondIntRange(){
+
+        String membershipId = "large" + System.currentTimeMillis();
+
+        membershipService.register(MembershipDTO.builder()
+                .userId("test1").membershipId(membershipId).membershipName("large").membershipStatus(true).point(Integer.MAX_VALUE - 10).build());
+
+        membershipService.recordPoints(List.of(PointEventDTO.builder()
+                .userId("test1").membershipId(membershipId).type(PointEventType.ACCRUAL).point(100).build()));
+
+        long expected = Integer.MAX_VALUE + 90L;
+
+        assertEquals(expected, membershipService.getBalance("test1", membershipId).getAsLong());
+        assertEquals(expected, membershipService.get("test1", membershipId).getPoint());
+
+        // 스냅샷(bigint)에 int 범위를 넘는 잔액도 반영됩니다.
+        pointSnapshotJob.fold();
+        assertEquals(expected, membershipService.getBalance("test1", membershipId).getAsLong());
+        assertEquals(expected, membershipService.get("test1", membershipId).getPoint());
+
+        membershipService.remove("test1", membershipId);
     }
 
     @Test
@@ -0,0 +1,115 @@
+package org.zerock.club.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.zerock.club.security.dto.NoteDTO;
+import org.zerock.club.security.dto.NotePageDTO;
+import org.zerock.club.security.dto.SparseNotePageDTO;
+import org.zerock.club.security.service.NoteService;
+import org.zerock.club.security.service.NoteVersionConflictException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class NoteServiceTests {
+
+    @Autowired
+    NoteService noteService;
+
+    @Test
+    public void testGetPage(){
+
+        String cursor = null;
+
+        do {
+            NotePageDTO page = noteService.getPage("user95@zerock.org", cursor, 10);
+
+            System.out.println("-----------------------------------------");
+            for (NoteDTO noteDTO : page.getNotes()){
+                System.out.println(noteDTO);
+            }
+
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Test
+    public void testExport() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = noteService.export("user95@zerock.org", out);
+
+        System.out.println("-----------------------------------------");
+        System.out.println(count);
+        System.out.println(out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRegisterAll() {
+
+        StringBuilder body = new StringBuilder();
+
+        for (int i = 1; i <= 2500; i++) {
+            body.append("{\"title\":\"batch").append(i)
+                    .append("\",\"content\":\"content...").append(i)
+                    .append("\",\"writerEmail\":\"user95@zerock.org\"}\n");
+        }
+
+        long start = System.currentTimeMillis();
+
+        long count = noteService.registerAll(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+
+        System.out.println("-----------------------------------------");
+        System.out.println(count + " notes: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @Test
+    public void testModifyConflict() {
+
+        Long num = noteService.register(NoteDTO.builder().title("title").content("content").writerEmail("user95@zerock.org").build());
+
+        Long version = noteService.get(num).getVersion();
+
+        NoteDTO first = NoteDTO.builder().num(num).title("first").content("content").version(version).build();
+        NoteDTO second = NoteDTO.builder().num(num).title("second").content("content").version(version).build();
+
+        assertTrue(noteService.modify(first));
+
+        // 같은 버전을 보고 수정한 두 번째 요청은 실패
+        assertThrows(NoteVersionConflictException.class, () -> noteService.modify(second));
+
+        NoteDTO result = noteService.get(num);
+        System.out.println(result);
+
+        assertEquals("first", result.getTitle());
+        assertEquals(version + 1, result.getVersion());
+    }
+
+    @Test
+    public void testGetSparsePage(){
+
+        String cursor = null;
+
+        do {
+            SparseNotePageDTO page = noteService.getPage("user95@zerock.org", cursor, 10, "num,title");
+
+            System.out.println("-----------------------------------------");
+            for (Map<String, Object> note : page.getNotes()){
+                assertEquals(2, note.size());
+                System.out.println(note);
+            }
+
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThrows(IllegalArgumentException.class, () -> noteService.getPage("user95@zerock.org", null, 10, "title,content"));
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.zerock.club.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentCodecTests {
+
+    @Test
+    public void testShortContentNotCompressed() {
+        String content = "짧은 메모 content";
+
+        byte[] data = ContentCodec.encode(content);
+
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length + 1, data.length);
+        assertEquals(content, ContentCodec.decode(data));
+    }
+
+    @Test
+    public void testLongContentCompressed() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            builder.append("붙여넣은 긴 문서의 ").append(i).append("번째 줄입니다. Spring Boot JPA note.\n");
+        }
+        String content = builder.toString();
+
+        byte[] data = ContentCodec.encode(content);
+        int original = content.getBytes(StandardCharsets.UTF_8).length;
+
+        System.out.println(original + " -> " + data.length);
+
+        assertTrue(data.length < original / 3);
+        assertEquals(content, ContentCodec.decode(data));
+    }
+
+    @Test
+    public void testIncompressibleContentStoredPlain() {
+        java.util.Random random = new java.util.Random(1);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append((char) ('!' + random.nextInt(90)));
+        }
+        String content = builder.toString();
+
+        byte[] data = ContentCodec.encode(content);
+
+        assertTrue(data.length <= content.length() + 1);
+        assertEquals(content, ContentCodec.decode(data));
+    }
+
+    @Test
+    public void testNullAndPreview() {
+        assertNull(ContentCodec.encode(null));
+        assertNull(ContentCodec.decode(null));
+
+        assertEquals("abc", ContentCodec.preview("abc", 10));
+        assertEquals("abcde", ContentCodec.preview("abcdefgh", 5));
+
+        // 서로게이트 쌍은 나누지 않습니다.
+        assertEquals("ab", ContentCodec.preview("ab😀cd", 3));
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.zerock.club.util;
+
+import org.junit.jupiter.api.Test;
+import org.zerock.club.util.search.InvertedIndex;
+import org.zerock.club.util.search.Tokenizer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTests {
+
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("spring", "boot", "2", "4"), Tokenizer.tokenize("Spring-Boot 2.4!"));
+        assertEquals(List.of("노트", "트를", "jpa", "로", "검색"), Tokenizer.tokenize("노트를 JPA로 검색"));
+        assertEquals(List.of("a", "한"), Tokenizer.tokenize("a 한"));
+        assertTrue(Tokenizer.tokenize(null).isEmpty());
+    }
+
+    @Test
+    public void testRanking() {
+        InvertedIndex index = new InvertedIndex();
+
+        index.add(1L, "user1@zerock.org", "Spring Security", "JWT filter and login");
+        index.add(2L, "user1@zerock.org", "JPA", "spring data repository");
+        index.add(3L, "user2@zerock.org", "Cooking", "kimchi recipe");
+
+        long[] result = index.search("spring", null, 10);
+        System.out.println(Arrays.toString(result));
+
+        // 제목에 있는 단어가 더 높은 점수
+        assertArrayEquals(new long[]{1L, 2L}, result);
+
+        assertArrayEquals(new long[]{3L}, index.search("KIMCHI", null, 10));
+        assertArrayEquals(new long[0], index.search("python", null, 10));
+        assertArrayEquals(new long[]{1L}, index.search("spring", null, 1));
+    }
+
+    @Test
+    public void testWriterFilter() {
+        InvertedIndex index = new InvertedIndex();
+
+        index.add(1L, "user1@zerock.org", "memo", "spring");
+        index.add(2L, "user2@zerock.org", "memo", "spring");
+
+        assertArrayEquals(new long[]{2L}, index.search("spring", "user2@zerock.org", 10));
+        assertArrayEquals(new long[0], index.search("spring", "nobody@zerock.org", 10));
+    }
+
+    @Test
+    public void testModifyAndRemove() {
+        InvertedIndex index = new InvertedIndex();
+
+        index.add(1L, "user1@zerock.org", "title", "old content");
+        index.add(1L, "user1@zerock.org", "title", "new content");
+
+        assertEquals(1, index.size());
+        assertArrayEquals(new long[0], index.search("old", null, 10));
+        assertArrayEquals(new long[]{1L}, index.search("new", null, 10));
+
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+        assertArrayEquals(new long[0], index.search("new", null, 10));
+    }
+
+    @Test
+    public void testUpdateKeepsWriter() {
+        InvertedIndex index = new InvertedIndex();
+
+        index.add(1L, "user1@zerock.org", "title", "old content");
+
+        assertTrue(index.update(1L, "title", "new content"));
+        assertFalse(index.update(2L, "title", "new content"));
+
+        assertArrayEquals(new long[]{1L}, index.search("new", "user1@zerock.org", 10));
+        assertArrayEquals(new long[0], index.search("old", null, 10));
+    }
+
+    @Test
+    public void testCompact() {
+        InvertedIndex index = new InvertedIndex();
+
+        for (long num = 1; num <= 10000; num++) {
+            index.add(num, "user" + (num % 10) + "@zerock.org", "title" + num, "common word" + (num % 100));
+        }
+
+        // 절반을 삭제하면 중간에 정리(compact)가 실행됩니다.
+        for (long num = 1; num <= 10000; num += 2) {
+            index.remove(num);
+        }
+
+        System.out.println("size: " + index.size() + ", tombstones: " + index.tombstones() + ", terms: " + index.termCount());
+
+        assertEquals(5000, index.size());
+        assertTrue(index.tombstones() < 5000);
+
+        assertArrayEquals(new long[]{42L}, index.search("title42", null, 10));
+        assertArrayEquals(new long[0], index.search("title43", null, 10));
+        assertEquals(5000, index.search("common", null, 100000).length);
+        assertEquals(1000, index.search("common", "user2@zerock.org", 100000).length);
+
+        index.compact();
+        assertEquals(0, index.tombstones());
+        assertTrue(index.contains(10000L));
+        assertArrayEquals(new long[]{9998L}, index.search("title9998", null, 10));
+    }
+
+}
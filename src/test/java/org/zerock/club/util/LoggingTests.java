@@ -0,0 +1,111 @@
+package org.zerock.club.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.logback.LogbackLoggingSystem;
+import org.springframework.mock.env.MockEnvironment;
+import org.zerock.club.util.logging.MaskingMessageConverter;
+import org.zerock.club.util.logging.SamplingTurboFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoggingTests {
+
+    @Test
+    public void testMaskToken() throws Exception {
+        String token = new JWTUtil().generateToken("user95@zerock.org");
+
+        String masked = MaskingMessageConverter.mask("Authorization exist : Bearer " + token);
+        System.out.println(masked);
+
+        assertFalse(masked.contains(token));
+        assertEquals("Authorization exist : Bearer [REDACTED]", masked);
+
+        assertEquals("token: [REDACTED] end", MaskingMessageConverter.mask("token: " + token + " end"));
+        assertEquals("REQUESTURI: /notes/all", MaskingMessageConverter.mask("REQUESTURI: /notes/all"));
+    }
+
+    @Test
+    public void testSampling() {
+        LoggerContext context = new LoggerContext();
+
+        Logger target = context.getLogger("org.zerock.club.controller.NoteController");
+        Logger other = context.getLogger("org.zerock.club.security.service.NoteServiceImpl");
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.addLogger("org.zerock.club.controller");
+        filter.setRate(10);
+        filter.setContext(context);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        for (int i = 0; i < 100; i++) {
+            target.info("getList");
+            target.debug("disabled");
+            other.info("info");
+        }
+
+        assertEquals(10, appender.list.stream().filter(e -> e.getLoggerName().equals(target.getName())).count());
+        assertEquals(100, appender.list.stream().filter(e -> e.getLoggerName().equals(other.getName())).count());
+
+        // WARN 이상, 대상이 아닌 로거는 항상 통과
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, target, Level.WARN, "warn", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "info", null, null));
+    }
+
+    /**
+     * @Log4j2 로거와 같이 log4j-to-slf4j를 거치면 TurboFilter가 두 번 호출되므로
+     * logback-spring.xml의 prod 설정으로 실제 경로를 확인합니다. (rate = 100)
+     */
+    @Test
+    public void testSamplingThroughLog4jBridge() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        LogbackLoggingSystem loggingSystem = new LogbackLoggingSystem(getClass().getClassLoader());
+
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+
+        loggingSystem.cleanUp();
+        loggingSystem.initialize(new LoggingInitializationContext(prod), "classpath:logback-spring.xml", null);
+
+        try {
+            String name = "org.zerock.club.controller.SamplingBridgeTests";
+
+            ListAppender<ILoggingEvent> appender = new ListAppender<>();
+            appender.setContext(context);
+            appender.start();
+
+            Logger target = context.getLogger(name);
+            target.addAppender(appender);
+            target.setAdditive(false);
+
+            org.apache.logging.log4j.Logger log = LogManager.getLogger(name);
+
+            for (int i = 0; i < 1000; i++) {
+                log.info("getList: {}", i);
+            }
+
+            assertEquals(10, appender.list.size());
+            assertEquals("getList: 0", appender.list.get(0).getFormattedMessage());
+            assertEquals("getList: 100", appender.list.get(1).getFormattedMessage());
+        } finally {
+            loggingSystem.cleanUp();
+            loggingSystem.initialize(new LoggingInitializationContext(new MockEnvironment()), "classpath:logback-spring.xml", null);
+        }
+    }
+
+}
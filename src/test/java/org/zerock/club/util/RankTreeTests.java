@@ -0,0 +1,97 @@
+package org.zerock.club.util;
+
+import org.junit.jupiter.api.Test;
+import org.zerock.club.util.rank.RankTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankTreeTests {
+
+    @Test
+    public void testRank() {
+        RankTree tree = new RankTree();
+
+        tree.put("user1", 100);
+        tree.put("user2", 300);
+        tree.put("user3", 200);
+        tree.put("user4", 200);
+
+        System.out.println(tree.range(0, 10));
+
+        // 점수가 높은 순서, 같으면 아이디 순서
+        assertEquals(List.of("user2", "user3", "user4", "user1"),
+                tree.range(0, 10).stream().map(RankTree.Entry::getMember).collect(Collectors.toList()));
+
+        assertEquals(0, tree.rank("user2"));
+        assertEquals(2, tree.rank("user4"));
+        assertEquals(-1, tree.rank("nobody"));
+
+        assertTrue(tree.add("user1", 250));
+        assertFalse(tree.add("nobody", 10));
+        assertEquals(0, tree.rank("user1"));
+        assertEquals(350L, tree.score("user1"));
+
+        assertTrue(tree.remove("user2"));
+        assertFalse(tree.remove("user2"));
+        assertEquals(3, tree.size());
+
+        assertEquals(List.of("user3", "user4"),
+                tree.range(1, 2).stream().map(RankTree.Entry::getMember).collect(Collectors.toList()));
+        assertTrue(tree.range(3, 10).isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        RankTree tree = new RankTree();
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            String member = "m" + random.nextInt(2000);
+            long value = random.nextInt(1000);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    tree.put(member, value);
+                    expected.put(member, value);
+                    break;
+                case 1:
+                    assertEquals(expected.containsKey(member), tree.add(member, value - 500));
+                    expected.computeIfPresent(member, (k, v) -> v + value - 500);
+                    break;
+                default:
+                    assertEquals(expected.remove(member) != null, tree.remove(member));
+            }
+        }
+
+        List<String> sorted = expected.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        assertEquals(sorted.size(), tree.size());
+
+        List<String> all = new ArrayList<>();
+        for (int from = 0; from < sorted.size(); from += 37) {
+            for (RankTree.Entry entry : tree.range(from, 37)) {
+                assertEquals(all.size(), entry.getRank());
+                assertEquals(expected.get(entry.getMember()), entry.getScore());
+                all.add(entry.getMember());
+            }
+        }
+        assertEquals(sorted, all);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, tree.rank(sorted.get(i)));
+        }
+    }
+
+}